@@ -71,7 +71,10 @@ function buildNotificationConfig(rawData) {
             body: payload.body || definition.fallbackBody,
             icon: DEFAULT_ICON,
             badge: DEFAULT_ICON,
-            tag: `continuum-${definition.tag}`,
+            // Chat pushes collapse per sender, matching the server-side Topic
+            tag: type === 'CHAT_MESSAGE' && data.senderId
+                ? `continuum-${definition.tag}-${data.senderId}`
+                : `continuum-${definition.tag}`,
             requireInteraction: Boolean(definition.requireInteraction),
             data: {
                 ...data,
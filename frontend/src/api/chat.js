@@ -4,8 +4,10 @@ import apiClient from './client';
  * Chat API - Message CRUD operations
  */
 const chatApi = {
-    // Get chat history with a friend
-    getChatHistory: (friendId) => apiClient.get(`/chat/${friendId}`),
+    // Get one page of chat history (oldest first within the page)
+    // cursor: { beforeSentAt, beforeId } from the previous page, or omitted for the latest page
+    getChatHistoryPage: (friendId, cursor = {}, limit = 50) =>
+        apiClient.get(`/chat/${friendId}/history`, { params: { ...cursor, limit } }),
 
     // Edit a message (sender only)
     editMessage: (messageId, content) =>
@@ -11,14 +11,31 @@ import apiClient from './client';
  * - POST /api/friends/{id}/accept  → Accept friend request
  * - POST /api/friends/{id}/reject  → Reject friend request
  */
+const FRIENDS_PAGE_SIZE = 200;
+
 export const friendsApi = {
     // ==================== READ ====================
 
     /**
-     * Get accepted friends list
-     * Returns: Array<{ userId, name, presence }>
+     * Get accepted friends list (plus chat partners)
+     * Pages through the id cursor until a short page; resolves like a
+     * single request: { data: Array<{ friendUserId, name, presenceStatus, ... }> }
      */
-    getFriends: () => apiClient.get('/friends'),
+    getFriends: async () => {
+        const data = [];
+        let afterId = 0;
+        for (;;) {
+            const res = await apiClient.get('/friends', {
+                params: { afterId, limit: FRIENDS_PAGE_SIZE }
+            });
+            const page = res.data || [];
+            data.push(...page);
+            if (page.length < FRIENDS_PAGE_SIZE) {
+                return { ...res, data };
+            }
+            afterId = page[page.length - 1].friendUserId;
+        }
+    },
 
     /**
      * Get pending incoming friend requests
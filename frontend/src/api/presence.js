@@ -7,6 +7,8 @@ const presenceApi = {
     markOnline: () => apiClient.patch('/presence', { status: 'ONLINE' }),
     markOffline: () => apiClient.patch('/presence', { status: 'OFFLINE' }),
     heartbeat: () => apiClient.post('/presence/heartbeat'),
+    // Presence for many users in one call: Array<{ userId, status, lastSeenAt }>
+    getBulk: (userIds) => apiClient.post('/presence/bulk', { userIds }),
 };
 
 export default presenceApi;
@@ -1,8 +1,7 @@
-import { useState, useEffect, useRef } from 'react';
+import { useState, useEffect, useLayoutEffect, useRef } from 'react';
 import { Badge } from '@/components/ui/badge';
 import { Button } from '@/components/ui/button';
 import { Input } from '@/components/ui/input';
-import chatApi from '../../api/chat';
 import { getToken } from '../../api/client';
 import {
     connectChatSocket,
@@ -12,12 +11,13 @@ import {
 import { formatTime } from '../../utils/dateUtils';
 import { cn } from '@/lib/utils';
 import PresenceBadge from '../ui/PresenceBadge';
+import { useChatHistory } from '../../hooks/useChatHistory';
 
 /**
  * ChatWindow - Modal-style chat interface
  * 
  * Features:
- * - Fetches chat history on open
+ * - Fetches the latest history page on open, older pages on scroll-up
  * - Real-time message delivery via WebSocket
  * - Sender-aligned message bubbles
  * - Timestamps
@@ -34,15 +34,24 @@ const ChatWindow = ({ friend, currentUserId, onClose }) => {
     const [error, setError] = useState(null);
     const [socketConnected, setSocketConnected] = useState(false);
     const messagesEndRef = useRef(null);
+    const messagesContainerRef = useRef(null);
+
+    const { loadLatest, onScroll, restoreScroll, loadingOlder } = useChatHistory({
+        friendId: friend.friendUserId,
+        setMessages,
+        containerRef: messagesContainerRef,
+    });
 
     // Scroll to bottom when messages change
     const scrollToBottom = () => {
         messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
     };
 
-    useEffect(() => {
+    useLayoutEffect(() => {
+        // Older page prepended: keep the viewport where it was
+        if (restoreScroll()) return;
         scrollToBottom();
-    }, [messages]);
+    }, [messages, restoreScroll]);
 
     // Fetch chat history and connect WebSocket
     useEffect(() => {
@@ -51,9 +60,8 @@ const ChatWindow = ({ friend, currentUserId, onClose }) => {
             setError(null);
 
             try {
-                // Fetch chat history
-                const response = await chatApi.getChatHistory(friend.friendUserId);
-                setMessages(response.data);
+                // Fetch the latest history page
+                await loadLatest();
 
                 // Connect WebSocket for real-time messages
                 const token = getToken();
@@ -91,7 +99,7 @@ const ChatWindow = ({ friend, currentUserId, onClose }) => {
             // Don't disconnect socket on close - other components may need it
             // disconnectChatSocket();
         };
-    }, [friend.friendUserId]);
+    }, [friend.friendUserId, loadLatest]);
 
     const handleSendMessage = (e) => {
         e.preventDefault();
@@ -126,7 +134,14 @@ const ChatWindow = ({ friend, currentUserId, onClose }) => {
                 </div>
 
                 {/* Messages */}
-                <div className="flex-1 overflow-y-auto p-4 space-y-3 bg-gray-50 dark:bg-black/30 transition-colors">
+                <div
+                    ref={messagesContainerRef}
+                    onScroll={onScroll}
+                    className="flex-1 overflow-y-auto p-4 space-y-3 bg-gray-50 dark:bg-black/30 transition-colors"
+                >
+                    {loadingOlder && (
+                        <div className="text-center text-xs text-muted-foreground">Loading older messages...</div>
+                    )}
                     {loading ? (
                         <div className="text-center text-muted-foreground">Loading messages...</div>
                     ) : error ? (
@@ -6,6 +6,15 @@ import { useAuth } from '../auth/AuthContext';
 
 const NotificationContext = createContext(null);
 
+// Chat notifications carry the sender in their JSON payload
+const chatSenderOf = (notification) => {
+    try {
+        return String(JSON.parse(notification.payload)?.senderId);
+    } catch {
+        return null;
+    }
+};
+
 export const useNotifications = () => {
     const context = useContext(NotificationContext);
     if (!context) {
@@ -20,6 +29,11 @@ export const NotificationProvider = ({ children }) => {
     const [unreadCount, setUnreadCount] = useState(0);
     const [toasts, setToasts] = useState([]);
     const syncInFlightRef = useRef(false);
+    const notificationsRef = useRef([]);
+
+    useEffect(() => {
+        notificationsRef.current = notifications;
+    }, [notifications]);
 
     const syncNotifications = useCallback(async () => {
         if (authLoading || !user) return;
@@ -70,6 +84,14 @@ export const NotificationProvider = ({ children }) => {
             return;
         }
 
+        if (notification.type === 'UNREAD_COUNT') {
+            // Server-side badge value; client-only admin notifications are added on top
+            const adminUnread = notificationsRef.current
+                .filter(n => String(n.id).startsWith('admin-') && !n.isRead).length;
+            setUnreadCount(notification.count + adminUnread);
+            return;
+        }
+
         if (notification.type === 'NOTIFICATION_READ') {
             setNotifications(prev => prev.map(n =>
                 n.id === notification.id ? { ...n, isRead: true } : n
@@ -78,9 +100,28 @@ export const NotificationProvider = ({ children }) => {
             return;
         }
 
-        // Add to notifications list
-        setNotifications((prev) => [notification, ...prev]);
-        setUnreadCount((prev) => prev + 1);
+        if (notification.type === 'CHAT_NOTIFICATIONS_READ') {
+            // Every chat notification from one sender was read; the
+            // UNREAD_COUNT frame that follows carries the new badge value
+            const senderId = String(notification.senderId);
+            setNotifications(prev => prev.map(n =>
+                n.type === 'CHAT_MESSAGE' && !n.isRead && chatSenderOf(n) === senderId
+                    ? { ...n, isRead: true }
+                    : n
+            ));
+            return;
+        }
+
+        if (notification.type === 'NOTIFICATION_UPDATED') {
+            // A still-unread chat notification was merged ("N new messages from X"):
+            // replace it and move it to the top without changing the unread count
+            notification = notification.notification;
+            setNotifications(prev => [notification, ...prev.filter(n => n.id !== notification.id)]);
+        } else {
+            // Add to notifications list
+            setNotifications((prev) => [notification, ...prev]);
+            setUnreadCount((prev) => prev + 1);
+        }
 
         // Show toast for certain types (SUPPRESS if already in chat)
         const toastTypes = [
@@ -189,19 +230,6 @@ export const NotificationProvider = ({ children }) => {
         };
     }, [syncNotifications]);
 
-    // Safety net: periodic sync to keep notification badges accurate.
-    useEffect(() => {
-        if (authLoading || !user) return;
-
-        const timer = window.setInterval(() => {
-            if (document.visibilityState === 'visible') {
-                syncNotifications();
-            }
-        }, 15000);
-
-        return () => window.clearInterval(timer);
-    }, [authLoading, user, syncNotifications]);
-
     // Mark single notification as read
     const markAsRead = async (notificationId) => {
         // Admin notifications are client-side only — mark locally without API call
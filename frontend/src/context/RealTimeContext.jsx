@@ -3,6 +3,7 @@ import { createContext, useContext, useState, useEffect, useRef, useCallback } f
 import { useAuth } from '../auth/AuthContext';
 import { getToken } from '../api/client';
 import friendsApi from '../api/friends';
+import presenceApi from '../api/presence';
 import {
     connectChatSocket,
     subscribeToPresence,
@@ -30,6 +31,53 @@ export const useRealTime = () => {
     return context;
 };
 
+// Server-side cap on ids per bulk presence request
+const PRESENCE_BULK_LIMIT = 500;
+
+const metUserIdOf = (r) => r.metUserId || r.userId;
+
+/**
+ * Presence for every friend and recently met user in one bulk call (chunked
+ * at the server limit) instead of one request per user. Returns
+ * Map<userId, { status, lastSeenAt }>; users the server omits are absent.
+ */
+const fetchPresences = async (friendsList, recentlyMetList) => {
+    const ids = [...new Set([
+        ...friendsList.map(f => f.friendUserId),
+        ...recentlyMetList.map(metUserIdOf),
+    ].filter(id => id != null))];
+
+    const byUser = new Map();
+    for (let i = 0; i < ids.length; i += PRESENCE_BULK_LIMIT) {
+        const res = await presenceApi.getBulk(ids.slice(i, i + PRESENCE_BULK_LIMIT));
+        (res.data || []).forEach(p => byUser.set(p.userId, p));
+    }
+    return byUser;
+};
+
+const withFriendPresence = (friendsList, byUser) => friendsList.map(f => {
+    const update = byUser.get(f.friendUserId);
+    return update
+        ? { ...f, presenceStatus: update.status, lastSeenAt: update.lastSeenAt }
+        : f;
+});
+
+// Recently met entries carry presence in 'presence'
+const withRecentlyMetPresence = (recentlyMetList, byUser) => recentlyMetList.map(r => {
+    const update = byUser.get(metUserIdOf(r));
+    return update ? { ...r, presence: update.status } : r;
+});
+
+// Presence is an overlay: a failed lookup keeps the lists as the server sent them
+const fetchPresencesSafely = async (friendsList, recentlyMetList) => {
+    try {
+        return await fetchPresences(friendsList, recentlyMetList);
+    } catch (err) {
+        console.error('[RealTime] Failed to fetch presence:', err);
+        return new Map();
+    }
+};
+
 export const RealTimeProvider = ({ children }) => {
     const { user, loading: authLoading } = useAuth();
     const isAuthenticated = !!user && !authLoading;
@@ -87,9 +135,13 @@ export const RealTimeProvider = ({ children }) => {
                 friendsApi.getRecentlyMet()
             ]);
 
-            setFriends(friendsRes.data || []);
+            const friendsList = friendsRes.data || [];
+            const recentlyMetList = recentlyMetRes.data || [];
+            const presences = await fetchPresencesSafely(friendsList, recentlyMetList);
+
+            setFriends(withFriendPresence(friendsList, presences));
             setPendingRequests(requestsRes.data || []);
-            setRecentlyMet(recentlyMetRes.data || []);
+            setRecentlyMet(withRecentlyMetPresence(recentlyMetList, presences));
             setHasFetched(true);
         } catch (err) {
             console.error('[RealTime] Failed to fetch data:', err);
@@ -124,11 +176,16 @@ export const RealTimeProvider = ({ children }) => {
     const setupPresenceSubscriptions = useCallback(() => {
         if (!isChatConnected()) return;
 
-        // Collect all unique user IDs we need to track
+        // Accepted friends arrive as batched deltas on /user/queue/presence;
+        // only chat partners and recently met users need a per-user topic
+        const acceptedIds = new Set(friends
+            .filter(f => f.friendshipStatus === 'ACCEPTED')
+            .map(f => f.friendUserId));
         const allTrackedIds = new Set();
 
         friends.forEach(f => allTrackedIds.add(f.friendUserId));
         recentlyMet.forEach(r => allTrackedIds.add(r.metUserId || r.userId)); // Handle both ID formats if any
+        acceptedIds.forEach(id => allTrackedIds.delete(id));
 
         // Filter out already subscribed
         const newIds = [...allTrackedIds].filter(id => !friendIdsRef.current.has(id));
@@ -160,7 +217,9 @@ export const RealTimeProvider = ({ children }) => {
     const refreshFriends = useCallback(async () => {
         try {
             const res = await friendsApi.getFriends();
-            setFriends(res.data || []);
+            const friendsList = res.data || [];
+            const presences = await fetchPresencesSafely(friendsList, []);
+            setFriends(withFriendPresence(friendsList, presences));
         } catch (err) {
             console.error('[RealTime] Failed to refresh friends:', err);
         }
@@ -178,7 +237,9 @@ export const RealTimeProvider = ({ children }) => {
     const refreshRecentlyMet = useCallback(async () => {
         try {
             const res = await friendsApi.getRecentlyMet();
-            setRecentlyMet(res.data || []);
+            const recentlyMetList = res.data || [];
+            const presences = await fetchPresencesSafely([], recentlyMetList);
+            setRecentlyMet(withRecentlyMetPresence(recentlyMetList, presences));
         } catch (err) {
             console.error('[RealTime] Failed to refresh recently met:', err);
         }
@@ -233,11 +294,16 @@ export const RealTimeProvider = ({ children }) => {
 
             case 'FRIEND_REQUEST_ACCEPTED':
                 setFriends(prev => {
-                    if (prev.some(f => f.friendUserId === event.friendId)) return prev;
+                    if (prev.some(f => f.friendUserId === event.friendId)) {
+                        return prev.map(f => f.friendUserId === event.friendId
+                            ? { ...f, friendshipStatus: 'ACCEPTED' }
+                            : f);
+                    }
                     return [...prev, {
                         friendUserId: event.friendId,
                         name: event.friendName,
-                        presenceStatus: event.presence || 'OFFLINE'
+                        presenceStatus: event.presence || 'OFFLINE',
+                        friendshipStatus: 'ACCEPTED'
                     }];
                 });
                 setPendingRequests(prev => prev.filter(r => r.requesterId !== event.friendId));
@@ -275,6 +341,12 @@ export const RealTimeProvider = ({ children }) => {
         }
     }, [bumpEventVersion, refreshRecentlyMet]);
 
+    const handlePresenceDelta = useCallback((deltas) => {
+        const byUser = new Map(deltas.map(d => [d.userId, d]));
+        setFriends(prev => withFriendPresence(prev, byUser));
+        setRecentlyMet(prev => withRecentlyMetPresence(prev, byUser));
+    }, []);
+
     // ==================== WEBSOCKET CONNECTION ====================
 
     const setupWebSocket = useCallback(() => {
@@ -307,10 +379,11 @@ export const RealTimeProvider = ({ children }) => {
         const friendUnsub = addListener('friend', handleFriendEvent);
         const sessionUnsub = addListener('session', handleSessionEvent);
         const matchUnsub = addListener('match', handleMatchEvent);
+        const presenceDeltaUnsub = addListener('presenceDelta', handlePresenceDelta);
 
-        listenersRef.current.push(friendUnsub, sessionUnsub, matchUnsub);
+        listenersRef.current.push(friendUnsub, sessionUnsub, matchUnsub, presenceDeltaUnsub);
 
-    }, [isAuthenticated, user, handleFriendEvent, handleSessionEvent, handleMatchEvent]);
+    }, [isAuthenticated, user, handleFriendEvent, handleSessionEvent, handleMatchEvent, handlePresenceDelta]);
 
     // ==================== LIFECYCLE ====================
 
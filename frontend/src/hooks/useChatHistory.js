@@ -0,0 +1,86 @@
+import { useCallback, useRef, useState } from 'react';
+import chatApi from '../api/chat';
+
+const SCROLL_TOP_THRESHOLD_PX = 80;
+
+const toCursor = (page) => (page?.hasMore
+    ? { beforeSentAt: page.nextBeforeSentAt, beforeId: page.nextBeforeId }
+    : null);
+
+/**
+ * Cursor-paged chat history.
+ *
+ * loadLatest() replaces the messages with the newest page; scrolling near the
+ * top of the container (onScroll) prepends the next older page. After a
+ * prepend, restoreScroll() keeps the viewport on the same message - call it
+ * from a layout effect on messages and skip the scroll-to-bottom when it
+ * returns true.
+ */
+export const useChatHistory = ({ friendId, setMessages, containerRef }) => {
+    const cursorRef = useRef(null);
+    const loadingOlderRef = useRef(false);
+    const prependHeightRef = useRef(null);
+    const lastScrollTopRef = useRef(0);
+    const [hasMore, setHasMore] = useState(false);
+    const [loadingOlder, setLoadingOlder] = useState(false);
+
+    const loadLatest = useCallback(async () => {
+        cursorRef.current = null;
+        const res = await chatApi.getChatHistoryPage(friendId);
+        cursorRef.current = toCursor(res.data);
+        setHasMore(!!cursorRef.current);
+        setMessages(res.data?.messages || []);
+        return res.data;
+    }, [friendId, setMessages]);
+
+    const loadOlder = useCallback(async () => {
+        const cursor = cursorRef.current;
+        if (!cursor || loadingOlderRef.current) return;
+
+        loadingOlderRef.current = true;
+        setLoadingOlder(true);
+        try {
+            const res = await chatApi.getChatHistoryPage(friendId, cursor);
+            // A newer loadLatest() reset the cursor meanwhile - drop this page
+            if (cursorRef.current !== cursor) return;
+
+            cursorRef.current = toCursor(res.data);
+            setHasMore(!!cursorRef.current);
+            prependHeightRef.current = containerRef.current?.scrollHeight ?? null;
+            setMessages(prev => {
+                const known = new Set(prev.map(m => m.id));
+                const older = (res.data?.messages || []).filter(m => !known.has(m.id));
+                return [...older, ...prev];
+            });
+        } catch (err) {
+            console.error('Failed to load older messages:', err);
+        } finally {
+            loadingOlderRef.current = false;
+            setLoadingOlder(false);
+        }
+    }, [friendId, setMessages, containerRef]);
+
+    const onScroll = useCallback((e) => {
+        const { scrollTop } = e.currentTarget;
+        // Only when moving up - the initial scroll-to-bottom starts at 0 too
+        const movingUp = scrollTop < lastScrollTopRef.current;
+        lastScrollTopRef.current = scrollTop;
+        if (movingUp && scrollTop < SCROLL_TOP_THRESHOLD_PX) {
+            loadOlder();
+        }
+    }, [loadOlder]);
+
+    const restoreScroll = useCallback(() => {
+        const previousHeight = prependHeightRef.current;
+        const container = containerRef.current;
+        if (previousHeight == null || !container) return false;
+
+        prependHeightRef.current = null;
+        container.scrollTop += container.scrollHeight - previousHeight;
+        return true;
+    }, [containerRef]);
+
+    return { loadLatest, loadOlder, onScroll, restoreScroll, hasMore, loadingOlder };
+};
+
+export default useChatHistory;
@@ -1,4 +1,4 @@
-import React, { useState, useEffect, useRef, useCallback } from 'react';
+import React, { useState, useEffect, useLayoutEffect, useRef, useCallback } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import PresenceBadge from '../components/ui/PresenceBadge';
 import { useAuth } from '../auth/AuthContext';
@@ -14,6 +14,7 @@ import {
     addListener
 } from '../ws/chatSocket';
 import { useDialog } from '../context/DialogContext';
+import { useChatHistory } from '../hooks/useChatHistory';
 import { ArrowLeft, Send, Pencil, Trash2, X, Copy, Reply, MoreVertical } from 'lucide-react';
 
 // Icons mapped from lucide-react
@@ -82,6 +83,14 @@ const ChatPage = () => {
     const messagesEndRef = useRef(null);
     const deleteMenuRef = useRef(null);
 
+    // Newest page on open, older pages when scrolled to the top
+    const {
+        loadLatest: loadLatestHistory,
+        onScroll: handleHistoryScroll,
+        restoreScroll,
+        loadingOlder,
+    } = useChatHistory({ friendId, setMessages, containerRef: messagesContainerRef });
+
     // Close delete menu when clicking outside
     useEffect(() => {
         const handleClickOutside = (e) => {
@@ -117,19 +126,22 @@ const ChatPage = () => {
         messagesEndRef.current?.scrollIntoView({ behavior: 'smooth' });
     }, []);
 
-    useEffect(() => {
+    useLayoutEffect(() => {
+        // Older page prepended: keep the viewport where it was
+        if (restoreScroll()) return;
         scrollToBottom();
-    }, [messages, scrollToBottom]);
+    }, [messages, scrollToBottom, restoreScroll]);
 
     const handleIncomingMessage = useCallback((msg) => {
-        // Handle Delivery/Seen Events
-        if (msg.type === 'MESSAGE_DELIVERED' || msg.type === 'MESSAGE_SEEN') {
+        // Handle batched Delivery/Seen receipts (one frame per sender)
+        if (msg.type === 'MESSAGES_DELIVERED' || msg.type === 'MESSAGES_SEEN') {
+            const ids = new Set(msg.messageIds || []);
             setMessages((prev) => prev.map((m) => {
-                if (m.id === msg.messageId) {
+                if (ids.has(m.id)) {
                     return {
                         ...m,
-                        deliveredAt: msg.type === 'MESSAGE_DELIVERED' ? msg.deliveredAt : (m.deliveredAt || msg.seenAt),
-                        seenAt: msg.type === 'MESSAGE_SEEN' ? msg.seenAt : m.seenAt
+                        deliveredAt: msg.type === 'MESSAGES_DELIVERED' ? msg.deliveredAt : (m.deliveredAt || msg.seenAt),
+                        seenAt: msg.type === 'MESSAGES_SEEN' ? msg.seenAt : m.seenAt
                     };
                 }
                 return m;
@@ -253,8 +265,7 @@ const ChatPage = () => {
                     // Presence fetch failures are non-blocking for chat load.
                 }
 
-                const historyRes = await chatApi.getChatHistory(friendId);
-                setMessages(historyRes.data);
+                await loadLatestHistory();
 
                 const token = getToken();
                 if (token && !isChatConnected()) {
@@ -276,7 +287,7 @@ const ChatPage = () => {
         };
 
         init();
-    }, [friendId, handleIncomingMessage]);
+    }, [friendId, handleIncomingMessage, loadLatestHistory]);
 
     // Keep WebSocket listener in sync using robust addListener pattern
     useEffect(() => {
@@ -738,10 +749,16 @@ const ChatPage = () => {
             <div
                 ref={messagesContainerRef}
                 className="flex-1 min-h-0 overflow-y-auto overflow-x-hidden px-3 py-3"
+                onScroll={handleHistoryScroll}
                 onClick={() => {
                     if (selectedIds.size > 0) clearSelection();
                 }}
             >
+                {loadingOlder && (
+                    <div className="text-center text-xs text-gray-500 dark:text-slate-500 py-2">
+                        Loading older messages...
+                    </div>
+                )}
                 {messages.length === 0 ? (
                     <div className="text-center text-gray-500 dark:text-slate-500 py-10 bg-white/50 dark:bg-slate-900/50 rounded-xl mt-4 shadow-sm border border-gray-200 dark:border-slate-800">
                         No messages yet. Say hello! 👋
@@ -16,6 +16,7 @@ import { getWsUrl } from '../api/client';
  * - /user/queue/calls (call events)
  * - /user/queue/notifications (notifications)
  * - /user/queue/session (session events)
+ * - /user/queue/presence (bulk presence replies, batched friend presence deltas)
  * - /topic/presence/{userId} (presence updates)
  */
 
@@ -23,6 +24,8 @@ let client = null;
 let connected = false;
 let adminSubscription = null;
 let presenceSubscriptions = {};
+let pendingPresenceRequests = new Map();
+let presenceRequestSeq = 0;
 let connectionCallbacks = { onConnected: null, onError: null };
 
 let isUserAdmin = false;
@@ -35,6 +38,7 @@ const listeners = {
     notification: new Set(),
     callSignal: new Set(),
     presence: new Map(),
+    presenceDelta: new Set(),
     connectionChange: new Set(),
     match: new Set(),
     session: new Set(),
@@ -232,6 +236,21 @@ const setupSubscriptions = () => {
             emit('callSignal', data);
         });
 
+        // Bulk presence replies + batched friend presence deltas
+        client.subscribe('/user/queue/presence', (message) => {
+            const data = JSON.parse(message.body);
+            if (data.type === 'PRESENCE_DELTA') {
+                emit('presenceDelta', data.presences || []);
+                return;
+            }
+            const pending = pendingPresenceRequests.get(data.requestId);
+            if (pending) {
+                pendingPresenceRequests.delete(data.requestId);
+                clearTimeout(pending.timer);
+                pending.resolve(data.presences || []);
+            }
+        });
+
         // Match events
         client.subscribe('/user/queue/match', (message) => {
             const data = JSON.parse(message.body);
@@ -336,6 +355,30 @@ export const sendChatMessage = (recipientId, content, replyToMessageId = null) =
     });
 };
 
+/**
+ * Request presence for many users at once over the socket.
+ * Resolves with Array<{ userId, status, lastSeenAt }>.
+ */
+export const requestPresences = (userIds, timeoutMs = 5000) => {
+    if (!client || !connected || !client.connected) {
+        return Promise.reject(new Error('Chat socket not connected'));
+    }
+
+    const requestId = String(++presenceRequestSeq);
+    return new Promise((resolve, reject) => {
+        const timer = setTimeout(() => {
+            pendingPresenceRequests.delete(requestId);
+            reject(new Error('Presence request timed out'));
+        }, timeoutMs);
+        pendingPresenceRequests.set(requestId, { resolve, timer });
+
+        client.publish({
+            destination: '/app/presence.bulk',
+            body: JSON.stringify({ userIds, requestId }),
+        });
+    });
+};
+
 /**
  * Subscribe to presence updates for a user
  * Supports multiple subscribers per user
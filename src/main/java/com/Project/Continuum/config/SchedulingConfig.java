@@ -0,0 +1,27 @@
+package com.Project.Continuum.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Application task scheduler for @Scheduled jobs and TaskScheduler callbacks
+ * (call deadlines, chat push windows, presence flushes).
+ *
+ * The STOMP broker registers its own single-thread messageBrokerTaskScheduler,
+ * which makes Boot's default taskScheduler back off - every job would share
+ * that one thread. This bean is built from spring.task.scheduling.* so the
+ * pool size is configurable, and is @Primary so TaskScheduler injection
+ * points get it rather than the broker's.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    @Primary
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+}
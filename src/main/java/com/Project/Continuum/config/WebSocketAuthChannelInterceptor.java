@@ -1,5 +1,8 @@
 package com.Project.Continuum.config;
 
+import com.Project.Continuum.security.AuthPrincipal;
+import com.Project.Continuum.security.AuthPrincipalCache;
+import com.Project.Continuum.security.JwtClaims;
 import com.Project.Continuum.security.JwtUtil;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
@@ -24,12 +27,11 @@ import java.util.List;
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
     private final JwtUtil jwtUtil;
-    private final com.Project.Continuum.repository.UserRepository userRepository;
+    private final AuthPrincipalCache authPrincipalCache;
 
-    public WebSocketAuthChannelInterceptor(JwtUtil jwtUtil,
-            com.Project.Continuum.repository.UserRepository userRepository) {
+    public WebSocketAuthChannelInterceptor(JwtUtil jwtUtil, AuthPrincipalCache authPrincipalCache) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.authPrincipalCache = authPrincipalCache;
     }
 
     @Override
@@ -46,21 +48,22 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                     String token = authHeader.substring(7);
 
                     try {
-                        Long userId = jwtUtil.extractUserId(token);
-                        String jwtSessionToken = jwtUtil.extractSessionToken(token);
+                        JwtClaims claims = jwtUtil.parseAll(token);
+                        Long userId = claims.userId();
+                        String jwtSessionToken = claims.sessionToken();
 
                         if (userId != null) {
-                            var userOpt = userRepository.findById(userId);
-                            if (userOpt.isEmpty() || !userOpt.get().isActive()) {
+                            if (jwtSessionToken == null) {
                                 return message;
                             }
 
-                            if (jwtSessionToken == null) {
+                            var principalOpt = authPrincipalCache.getForSession(userId, jwtSessionToken);
+                            if (principalOpt.isEmpty() || !principalOpt.get().active()) {
                                 return message;
                             }
 
-                            String dbSessionToken = userOpt.get().getSessionToken();
-                            if (dbSessionToken == null || !dbSessionToken.equals(jwtSessionToken)) {
+                            AuthPrincipal principal = principalOpt.get();
+                            if (!principal.matchesSession(jwtSessionToken)) {
                                 System.err.println("[WebSocketAuth] Session token mismatch for user " + userId);
                                 return message; // Invalid session, treat as unauthenticated
                             }
@@ -69,7 +72,7 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                             List<org.springframework.security.core.GrantedAuthority> authorities = Collections
                                     .singletonList(
                                             new org.springframework.security.core.authority.SimpleGrantedAuthority(
-                                                    "ROLE_" + userOpt.get().getRole().name()));
+                                                    "ROLE_" + principal.role()));
 
                             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                                     userId,
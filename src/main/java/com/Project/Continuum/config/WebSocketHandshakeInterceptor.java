@@ -1,5 +1,8 @@
 package com.Project.Continuum.config;
 
+import com.Project.Continuum.security.AuthPrincipal;
+import com.Project.Continuum.security.AuthPrincipalCache;
+import com.Project.Continuum.security.JwtClaims;
 import com.Project.Continuum.security.JwtUtil;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -27,12 +30,11 @@ import java.util.Map;
 public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
 
     private final JwtUtil jwtUtil;
-    private final com.Project.Continuum.repository.UserRepository userRepository;
+    private final AuthPrincipalCache authPrincipalCache;
 
-    public WebSocketHandshakeInterceptor(JwtUtil jwtUtil,
-            com.Project.Continuum.repository.UserRepository userRepository) {
+    public WebSocketHandshakeInterceptor(JwtUtil jwtUtil, AuthPrincipalCache authPrincipalCache) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.authPrincipalCache = authPrincipalCache;
     }
 
     @Override
@@ -48,23 +50,24 @@ public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
 
             if (token != null && !token.isEmpty()) {
                 try {
-                    Long userId = jwtUtil.extractUserId(token);
-                    String jwtSessionToken = jwtUtil.extractSessionToken(token);
+                    JwtClaims claims = jwtUtil.parseAll(token);
+                    Long userId = claims.userId();
+                    String jwtSessionToken = claims.sessionToken();
 
                     if (userId != null) {
-                        var userOpt = userRepository.findById(userId);
-                        if (userOpt.isEmpty() || !userOpt.get().isActive()) {
+                        if (jwtSessionToken == null) {
                             response.setStatusCode(org.springframework.http.HttpStatus.UNAUTHORIZED);
                             return false;
                         }
 
-                        if (jwtSessionToken == null) {
+                        var principalOpt = authPrincipalCache.getForSession(userId, jwtSessionToken);
+                        if (principalOpt.isEmpty() || !principalOpt.get().active()) {
                             response.setStatusCode(org.springframework.http.HttpStatus.UNAUTHORIZED);
                             return false;
                         }
 
-                        String dbSessionToken = userOpt.get().getSessionToken();
-                        if (dbSessionToken == null || !dbSessionToken.equals(jwtSessionToken)) {
+                        AuthPrincipal principal = principalOpt.get();
+                        if (!principal.matchesSession(jwtSessionToken)) {
                             System.err.println("[WebSocketHandshake] Session mismatch for user " + userId
                                     + ". Rejecting.");
                             response.setStatusCode(org.springframework.http.HttpStatus.UNAUTHORIZED);
@@ -80,7 +83,7 @@ public class WebSocketHandshakeInterceptor implements HandshakeInterceptor {
                         // admin subscriptions are silently rejected.
                         var authorities = Collections.singletonList(
                                 new SimpleGrantedAuthority(
-                                        "ROLE_" + userOpt.get().getRole().name()));
+                                        "ROLE_" + principal.role()));
                         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                                 userId,
                                 null,
@@ -4,6 +4,10 @@ import com.Project.Continuum.dto.admin.DashboardStatsResponse;
 import com.Project.Continuum.dto.admin.AdminUserResponse;
 import com.Project.Continuum.dto.admin.UserActivityResponse;
 import com.Project.Continuum.service.AdminService;
+import com.Project.Continuum.store.PresenceFanout;
+import com.Project.Continuum.store.PresenceFanoutStats;
+import com.Project.Continuum.store.PresenceStats;
+import com.Project.Continuum.store.PresenceStore;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,9 +22,13 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
 
     private final AdminService adminService;
+    private final PresenceStore presenceStore;
+    private final PresenceFanout presenceFanout;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, PresenceStore presenceStore, PresenceFanout presenceFanout) {
         this.adminService = adminService;
+        this.presenceStore = presenceStore;
+        this.presenceFanout = presenceFanout;
     }
 
     @GetMapping("/dashboard/stats")
@@ -28,6 +36,16 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getDashboardStats());
     }
 
+    @GetMapping("/presence/stats")
+    public ResponseEntity<PresenceStats> getPresenceStats() {
+        return ResponseEntity.ok(presenceStore.getStats());
+    }
+
+    @GetMapping("/presence/fanout")
+    public ResponseEntity<PresenceFanoutStats> getPresenceFanoutStats() {
+        return ResponseEntity.ok(presenceFanout.getStats());
+    }
+
     @GetMapping("/users")
     public ResponseEntity<Page<AdminUserResponse>> getUsers(
             @PageableDefault(size = 20) Pageable pageable) {
@@ -1,5 +1,6 @@
 package com.Project.Continuum.controller;
 
+import com.Project.Continuum.dto.chat.ChatHistoryPageResponse;
 import com.Project.Continuum.dto.chat.ChatMessageRequest;
 import com.Project.Continuum.dto.chat.ChatMessageResponse;
 import com.Project.Continuum.security.SecurityUtils;
@@ -11,6 +12,7 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +32,17 @@ public class ChatController {
         return ResponseEntity.ok(chatService.getChatHistory(userId, friendId));
     }
 
+    // REST: Get History (keyset-paginated, oldest first within a page)
+    @GetMapping("/api/chat/{friendId}/history")
+    public ResponseEntity<ChatHistoryPageResponse> getChatHistoryPage(
+            @PathVariable Long friendId,
+            @RequestParam(required = false) Instant beforeSentAt,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) Integer limit) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        return ResponseEntity.ok(chatService.getChatHistoryPage(userId, friendId, beforeSentAt, beforeId, limit));
+    }
+
     // REST: Edit Message
     @PatchMapping("/api/chat/messages/{messageId}")
     public ResponseEntity<ChatMessageResponse> editMessage(
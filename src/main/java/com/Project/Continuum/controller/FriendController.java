@@ -23,10 +23,16 @@ public class FriendController {
         this.userRepository = userRepository;
     }
 
+    /**
+     * Contacts page, ordered by user id. Pass the last friendUserId as
+     * afterId for the next page; a page shorter than limit is the last.
+     */
     @GetMapping
-    public List<FriendResponse> getFriends() {
+    public List<FriendResponse> getFriends(
+            @RequestParam(defaultValue = "0") Long afterId,
+            @RequestParam(defaultValue = "200") int limit) {
         Long userId = SecurityUtils.getCurrentUserId();
-        return friendService.getFriends(userId);
+        return friendService.getFriends(userId, afterId, limit);
     }
 
     @GetMapping("/requests")
@@ -1,27 +1,34 @@
 package com.Project.Continuum.controller;
 
+import com.Project.Continuum.dto.MatchingRequest;
 import com.Project.Continuum.entity.ExchangeSession;
 import com.Project.Continuum.entity.User;
-import com.Project.Continuum.enums.MatchDecisionType;
 import com.Project.Continuum.enums.MatchIntent;
-import com.Project.Continuum.matching.MatchCandidate;
-import com.Project.Continuum.matching.MatchDecision;
+import com.Project.Continuum.matching.BatchMatcher;
+import com.Project.Continuum.matching.MatchingQueue;
 import com.Project.Continuum.repository.UserRepository;
 import com.Project.Continuum.service.CallService;
 import com.Project.Continuum.service.MatchingService;
 import com.Project.Continuum.service.ExchangeSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket controller for real-time matching
+ * 
+ * Two modes:
+ * - Greedy (default): a joiner immediately claims a compatible waiter
+ * - Batch (matching.batch.enabled=true): joiners only enqueue and a periodic
+ * tick pairs the whole waiting pool at once
  */
 @Controller
 public class MatchingWebSocketController {
@@ -33,16 +40,20 @@ public class MatchingWebSocketController {
     private final CallService callService;
     private final UserRepository userRepository;
     private final SimpMessageSendingOperations messagingTemplate;
+    private final MatchingQueue matchingQueue;
 
-    private final ConcurrentHashMap<Long, MatchIntent> waitingQueue = new ConcurrentHashMap<>();
+    @Value("${matching.batch.enabled:false}")
+    private boolean batchEnabled;
 
     public MatchingWebSocketController(
             MatchingService matchingService,
+            MatchingQueue matchingQueue,
             ExchangeSessionService exchangeSessionService,
             CallService callService,
             UserRepository userRepository,
             SimpMessageSendingOperations messagingTemplate) {
         this.matchingService = matchingService;
+        this.matchingQueue = matchingQueue;
         this.exchangeSessionService = exchangeSessionService;
         this.callService = callService;
         this.userRepository = userRepository;
@@ -50,7 +61,7 @@ public class MatchingWebSocketController {
     }
 
     @MessageMapping("/matching.join")
-    public void joinMatching(com.Project.Continuum.dto.MatchingRequest request, Principal principal) {
+    public void joinMatching(MatchingRequest request, Principal principal) {
         if (principal == null) {
             log.warn("No principal for matching.join");
             return;
@@ -69,38 +80,70 @@ public class MatchingWebSocketController {
 
         log.info("User {} joining matching with intent: {} in category: {}", userId, intent, request.getCategory());
 
-        // First, check if there's someone in the waiting queue (simple FIFO check -
-        // strictly we should check category here too)
-        // For strict category matching, we might want to leverage MatchingService
-        // primarily.
-        // But if we want to check the queue:
-        // TODO: Enhance queue to be category-aware. For now, we rely on MatchingService
-        // immediate match.
-
-        // Try to find candidates using MatchingService (This does strict category
-        // checks)
-        MatchDecision decision = matchingService.findMatch(userId, request);
-
-        if (decision.getType() == MatchDecisionType.ONLINE_CANDIDATE_FOUND &&
-                decision.getCandidates() != null &&
-                !decision.getCandidates().isEmpty()) {
-
-            for (MatchCandidate candidate : decision.getCandidates()) {
-                // ATOMIC: remove() returns the value if present, null otherwise.
-                // This ensures only one thread can claim the waiting user.
-                MatchIntent claimedIntent = waitingQueue.remove(candidate.getUserId());
-                if (claimedIntent != null) {
-                    log.info("Matched with waiting candidate: {} <-> {}", userId, candidate.getUserId());
-                    createSessionAndNotify(userId, candidate.getUserId());
-                    return;
-                }
+        // Strict ownership / category checks before touching the queue
+        matchingService.validateRequest(userId, request);
+
+        // Drop any previous entry so a re-join never matches against itself
+        matchingQueue.remove(userId);
+
+        if (batchEnabled) {
+            // Pairing happens on the next batch tick
+            enqueueAndNotifyWaiting(userId, request);
+            return;
+        }
+
+        // Claim a waiter from the complementary (category, teach, learn) bucket,
+        // or wait in our own - one atomic step so simultaneous joiners meet
+        MatchingQueue.WaitingEntry claimed = matchingQueue.claimOrEnqueue(
+                userId, request, matchingService.partnerFilter(userId));
+
+        if (claimed != null) {
+            log.info("Matched with waiting candidate: {} <-> {}", userId, claimed.getUserId());
+            createSessionAndNotify(userId, null, claimed);
+            return;
+        }
+
+        // No immediate match - already in the waiting queue with the full request
+        notifyWaiting(userId, request);
+    }
+
+    /**
+     * Batch matchmaking tick: pairs the whole waiting pool in one pass.
+     * No-op unless matching.batch.enabled is set.
+     */
+    @Scheduled(fixedDelayString = "${matching.batch.interval-ms:500}")
+    public void runBatchTick() {
+        if (!batchEnabled) {
+            return;
+        }
+
+        List<MatchingQueue.WaitingEntry> pool = matchingQueue.snapshot();
+        if (pool.size() < 2) {
+            return;
+        }
+
+        List<Long> userIds = pool.stream().map(MatchingQueue.WaitingEntry::getUserId).toList();
+        List<BatchMatcher.MatchPair> pairs = BatchMatcher.pair(pool, matchingService.batchPairFilter(userIds));
+
+        for (BatchMatcher.MatchPair pair : pairs) {
+            if (matchingQueue.claimPair(pair.first(), pair.second())) {
+                log.info("Batch matched: {} <-> {}", pair.first().getUserId(), pair.second().getUserId());
+                createSessionAndNotify(pair.first().getUserId(), pair.first(), pair.second());
             }
         }
 
-        // No immediate match - add to waiting queue
-        // We should really store the full request here to match against future JOINERS
-        waitingQueue.put(userId, intent);
-        log.info("User {} added to waiting queue. Queue size: {}", userId, waitingQueue.size());
+        if (!pairs.isEmpty()) {
+            log.info("Batch tick paired {} couples from {} waiting users", pairs.size(), pool.size());
+        }
+    }
+
+    private void enqueueAndNotifyWaiting(Long userId, MatchingRequest request) {
+        matchingQueue.enqueue(userId, request);
+        notifyWaiting(userId, request);
+    }
+
+    private void notifyWaiting(Long userId, MatchingRequest request) {
+        log.info("User {} added to waiting queue. Queue size: {}", userId, matchingQueue.size());
 
         messagingTemplate.convertAndSendToUser(
                 userId.toString(),
@@ -109,17 +152,14 @@ public class MatchingWebSocketController {
                         "You are in the queue. Waiting for a partner in " + request.getCategory() + "..."));
     }
 
-    private Long findFromWaitingQueue(Long userId) {
-        for (Map.Entry<Long, MatchIntent> entry : waitingQueue.entrySet()) {
-            if (!entry.getKey().equals(userId)) {
-                waitingQueue.remove(entry.getKey());
-                return entry.getKey();
-            }
-        }
-        return null;
-    }
-
-    private void createSessionAndNotify(Long userAId, Long userBId) {
+    /**
+     * @param userAEntry A's claimed queue entry (batch mode), or null when A
+     *                   is the live joiner (greedy mode)
+     * @param claimedB   B's claimed queue entry
+     */
+    private void createSessionAndNotify(Long userAId, MatchingQueue.WaitingEntry userAEntry,
+            MatchingQueue.WaitingEntry claimedB) {
+        Long userBId = claimedB.getUserId();
         try {
             User userA = userRepository.findById(userAId)
                     .orElseThrow(() -> new RuntimeException("User not found: " + userAId));
@@ -154,12 +194,18 @@ public class MatchingWebSocketController {
         } catch (Exception e) {
             log.error("Failed to create session for {} and {}: {}", userAId, userBId, e.getMessage());
 
-            messagingTemplate.convertAndSendToUser(
-                    userAId.toString(),
-                    "/queue/match",
-                    Map.of("type", "ERROR", "message", "Failed to create session: " + e.getMessage()));
+            if (userAEntry != null) {
+                // Batch: A was claimed from the queue too - put both back
+                matchingQueue.requeue(userAEntry);
+            } else {
+                messagingTemplate.convertAndSendToUser(
+                        userAId.toString(),
+                        "/queue/match",
+                        Map.of("type", "ERROR", "message", "Failed to create session: " + e.getMessage()));
+            }
 
-            waitingQueue.put(userBId, MatchIntent.AUDIO_CALL);
+            // Put the claimed waiter back with their original request
+            matchingQueue.requeue(claimedB);
         }
     }
 
@@ -170,8 +216,8 @@ public class MatchingWebSocketController {
 
         try {
             Long userId = Long.valueOf(principal.getName());
-            waitingQueue.remove(userId);
-            log.info("User {} left matching queue. Queue size: {}", userId, waitingQueue.size());
+            matchingQueue.remove(userId);
+            log.info("User {} left matching queue. Queue size: {}", userId, matchingQueue.size());
         } catch (NumberFormatException e) {
             // Ignore
         }
@@ -1,23 +1,35 @@
 package com.Project.Continuum.controller;
 
+import com.Project.Continuum.dto.presence.PresenceBulkRequest;
 import com.Project.Continuum.dto.presence.PresenceResponse;
 import com.Project.Continuum.dto.presence.PresenceUpdateRequest;
 import com.Project.Continuum.security.SecurityUtils;
 import com.Project.Continuum.service.PresenceService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/presence")
 public class PresenceController {
 
     private final PresenceService presenceService;
+    private final SimpMessageSendingOperations messagingTemplate;
 
-    public PresenceController(PresenceService presenceService) {
+    public PresenceController(PresenceService presenceService,
+            SimpMessageSendingOperations messagingTemplate) {
         this.presenceService = presenceService;
+        this.messagingTemplate = messagingTemplate;
     }
 
     @PatchMapping
@@ -44,6 +56,35 @@ public class PresenceController {
         );
     }
 
+    // REST: Presence for many users in one call
+    @PostMapping("/bulk")
+    public ResponseEntity<List<PresenceResponse>> getPresences(
+            @Valid @RequestBody PresenceBulkRequest request
+    ) {
+        return ResponseEntity.ok(
+                presenceService.getPresences(request.getUserIds())
+        );
+    }
+
+    // WebSocket: same lookup as request/reply
+    // Client sends to: /app/presence.bulk, reply on /user/queue/presence
+    @MessageMapping("/presence.bulk")
+    public void getPresencesOverSocket(
+            @Payload @Valid PresenceBulkRequest request,
+            Principal principal
+    ) {
+        if (principal == null) {
+            throw new IllegalStateException("Unauthenticated WebSocket message");
+        }
+
+        Map<String, Object> reply = new HashMap<>();
+        reply.put("type", "PRESENCE_BULK");
+        reply.put("requestId", request.getRequestId());
+        reply.put("presences", presenceService.getPresences(request.getUserIds()));
+
+        messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/presence", reply);
+    }
+
     @PostMapping("/heartbeat")
     public void heartbeat() {
         Long userId = SecurityUtils.getCurrentUserId();
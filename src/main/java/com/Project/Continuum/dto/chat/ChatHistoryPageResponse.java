@@ -0,0 +1,42 @@
+package com.Project.Continuum.dto.chat;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of chat history, oldest message first.
+ * 
+ * To load older messages, pass nextBeforeSentAt / nextBeforeId back as the
+ * beforeSentAt / beforeId cursor. Both are null when hasMore is false.
+ */
+public class ChatHistoryPageResponse {
+
+    private List<ChatMessageResponse> messages;
+    private boolean hasMore;
+    private Instant nextBeforeSentAt;
+    private Long nextBeforeId;
+
+    public ChatHistoryPageResponse(List<ChatMessageResponse> messages, boolean hasMore,
+            Instant nextBeforeSentAt, Long nextBeforeId) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+        this.nextBeforeSentAt = nextBeforeSentAt;
+        this.nextBeforeId = nextBeforeId;
+    }
+
+    public List<ChatMessageResponse> getMessages() {
+        return messages;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public Instant getNextBeforeSentAt() {
+        return nextBeforeSentAt;
+    }
+
+    public Long getNextBeforeId() {
+        return nextBeforeId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.Project.Continuum.dto.friend;
 
+import com.Project.Continuum.enums.FriendStatus;
 import com.Project.Continuum.enums.PresenceStatus;
 
 public class FriendResponse {
@@ -8,16 +9,23 @@ public class FriendResponse {
     private String name;
     private PresenceStatus presenceStatus;
     private String role;
+    private String profileImageUrl;
+    // null for chat partners that are not (yet) friends
+    private FriendStatus friendshipStatus;
 
     public FriendResponse(
             Long friendUserId,
             String name,
             PresenceStatus presenceStatus,
-            String role) {
+            String role,
+            String profileImageUrl,
+            FriendStatus friendshipStatus) {
         this.friendUserId = friendUserId;
         this.name = name;
         this.presenceStatus = presenceStatus;
         this.role = role;
+        this.profileImageUrl = profileImageUrl;
+        this.friendshipStatus = friendshipStatus;
     }
 
     public Long getFriendUserId() {
@@ -35,4 +43,12 @@ public class FriendResponse {
     public String getRole() {
         return role;
     }
+
+    public String getProfileImageUrl() {
+        return profileImageUrl;
+    }
+
+    public FriendStatus getFriendshipStatus() {
+        return friendshipStatus;
+    }
 }
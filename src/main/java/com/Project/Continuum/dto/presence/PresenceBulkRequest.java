@@ -0,0 +1,30 @@
+package com.Project.Continuum.dto.presence;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+public class PresenceBulkRequest {
+
+    @NotNull
+    private List<Long> userIds;
+
+    // Optional, echoed back on the STOMP reply so the client can match it
+    private String requestId;
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+}
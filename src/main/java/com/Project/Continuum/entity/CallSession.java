@@ -7,7 +7,11 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "call_sessions")
+@Table(name = "call_sessions", indexes = {
+        @Index(name = "idx_call_status_initiated", columnList = "status, initiated_at"),
+        @Index(name = "idx_call_caller_status", columnList = "caller_id, status"),
+        @Index(name = "idx_call_receiver_status", columnList = "receiver_id, status")
+})
 public class CallSession {
 
     @Id
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_conversation_sent", columnList = "conversation_key, sent_at, id")
+})
 public class ChatMessage {
 
     @Id
@@ -19,6 +21,10 @@ public class ChatMessage {
     @JoinColumn(name = "recipient_id", nullable = false)
     private User recipient;
 
+    // Normalized pair "minUserId:maxUserId", identical for both directions
+    @Column(name = "conversation_key", length = 41)
+    private String conversationKey;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
@@ -50,6 +56,17 @@ public class ChatMessage {
     public ChatMessage() {
     }
 
+    public static String conversationKey(Long userA, Long userB) {
+        return Math.min(userA, userB) + ":" + Math.max(userA, userB);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (conversationKey == null && sender != null && recipient != null) {
+            conversationKey = conversationKey(sender.getId(), recipient.getId());
+        }
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -75,6 +92,10 @@ public class ChatMessage {
         this.recipient = recipient;
     }
 
+    public String getConversationKey() {
+        return conversationKey;
+    }
+
     public String getContent() {
         return content;
     }
@@ -7,7 +7,9 @@ import java.time.Instant;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_notification_user_read", columnList = "user_id, is_read"),
-        @Index(name = "idx_notification_user_created", columnList = "user_id, created_at DESC")
+        @Index(name = "idx_notification_user_created", columnList = "user_id, created_at DESC"),
+        @Index(name = "idx_notification_user_sender_read", columnList = "user_id, sender_id, is_read"),
+        @Index(name = "idx_notification_read_created", columnList = "is_read, created_at")
 })
 public class Notification {
 
@@ -37,6 +39,21 @@ public class Notification {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // Routing fields promoted from the JSON payload (nullable, type-dependent).
+    // senderId is the other user the notification is about, never the recipient.
+    @Column(name = "sender_id")
+    private Long senderId;
+
+    @Column(name = "call_id")
+    private Long callId;
+
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    // Messages merged into a coalesced chat notification; null = 1
+    @Column(name = "message_count")
+    private Integer messageCount;
+
     public Notification() {
     }
 
@@ -73,6 +90,22 @@ public class Notification {
         return createdAt;
     }
 
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public Long getCallId() {
+        return callId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
     // Setters
     public void setId(Long id) {
         this.id = id;
@@ -105,4 +138,20 @@ public class Notification {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public void setSenderId(Long senderId) {
+        this.senderId = senderId;
+    }
+
+    public void setCallId(Long callId) {
+        this.callId = callId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public void setMessageCount(Integer messageCount) {
+        this.messageCount = messageCount;
+    }
 }
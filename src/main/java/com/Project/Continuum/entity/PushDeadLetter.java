@@ -0,0 +1,146 @@
+package com.Project.Continuum.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * PushDeadLetter - A web push that could not be delivered.
+ * 
+ * Written when retries are exhausted, the push service rejects the request
+ * permanently, or a Retry-After exceeds the allowed delay. Only delivery
+ * metadata is kept - the endpoint's origin, the topic and a SHA-256 of the
+ * payload, never the payload itself (it carries chat previews). Rows are
+ * purged by the notification retention job; the user's Notification row is
+ * unaffected.
+ */
+@Entity
+@Table(name = "push_dead_letters", indexes = {
+        @Index(name = "idx_push_dead_letter_failed", columnList = "failed_at")
+})
+public class PushDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+
+    @Column(name = "endpoint_origin", nullable = false, length = 255)
+    private String endpointOrigin;
+
+    @Column(name = "topic", length = 32)
+    private String topic;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "reason", length = 500)
+    private String reason;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "payload_sha256", length = 64)
+    private String payloadSha256;
+
+    @Column(name = "payload_size")
+    private Integer payloadSize;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt;
+
+    public PushDeadLetter() {
+    }
+
+    // ==================== GETTERS ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public String getEndpointOrigin() {
+        return endpointOrigin;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getPayloadSha256() {
+        return payloadSha256;
+    }
+
+    public Integer getPayloadSize() {
+        return payloadSize;
+    }
+
+    public Instant getFailedAt() {
+        return failedAt;
+    }
+
+    // ==================== SETTERS ====================
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public void setSubscriptionId(Long subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+
+    public void setEndpointOrigin(String endpointOrigin) {
+        this.endpointOrigin = endpointOrigin;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public void setStatusCode(Integer statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public void setPayloadSha256(String payloadSha256) {
+        this.payloadSha256 = payloadSha256;
+    }
+
+    public void setPayloadSize(Integer payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+
+    public void setFailedAt(Instant failedAt) {
+        this.failedAt = failedAt;
+    }
+}
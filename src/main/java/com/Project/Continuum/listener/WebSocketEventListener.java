@@ -1,13 +1,12 @@
 package com.Project.Continuum.listener;
 
-import com.Project.Continuum.dto.presence.PresenceResponse;
 import com.Project.Continuum.enums.PresenceStatus;
 import com.Project.Continuum.service.PresenceService;
+import com.Project.Continuum.store.PresenceFanout;
 import com.Project.Continuum.store.PresenceStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -27,19 +26,19 @@ public class WebSocketEventListener {
 
     private final PresenceService presenceService;
     private final PresenceStore presenceStore;
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceFanout presenceFanout;
     private final com.Project.Continuum.service.CallService callService;
     private final com.Project.Continuum.service.ChatService chatService;
 
     public WebSocketEventListener(
             PresenceService presenceService,
             PresenceStore presenceStore,
-            SimpMessageSendingOperations messagingTemplate,
+            PresenceFanout presenceFanout,
             com.Project.Continuum.service.CallService callService,
             com.Project.Continuum.service.ChatService chatService) {
         this.presenceService = presenceService;
         this.presenceStore = presenceStore;
-        this.messagingTemplate = messagingTemplate;
+        this.presenceFanout = presenceFanout;
         this.callService = callService;
         this.chatService = chatService;
     }
@@ -121,10 +120,8 @@ public class WebSocketEventListener {
                 logger.info("🟡 User {} disconnected but has {} other connection(s) - staying ONLINE",
                         userId, remaining);
 
-                // Broadcast current status to ensure UI is updated
-                PresenceResponse response = new PresenceResponse(
-                        userId, presenceStore.getStatus(userId), java.time.Instant.now());
-                messagingTemplate.convertAndSend("/topic/presence/" + userId, response);
+                // Re-assert current status; the fan-out drops it if nothing changed
+                presenceFanout.publish(userId, presenceStore.getStatus(userId), presenceStore.getLastSeen(userId));
             }
         } catch (NumberFormatException e) {
             logger.warn("Invalid user ID format: {}", principal.getName());
@@ -0,0 +1,75 @@
+package com.Project.Continuum.matching;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Global pairing over a snapshot of the waiting pool.
+ * 
+ * Waiters are grouped by compatibility bucket and each bucket is paired
+ * against its complement (or against itself for same-skill language
+ * conversation). Within a bucket pair the matching is greedy in FIFO order,
+ * which yields a maximal matching: no remaining waiter can be paired with
+ * another remaining compatible waiter.
+ */
+public final class BatchMatcher {
+
+    private BatchMatcher() {
+    }
+
+    public static List<MatchPair> pair(
+            List<MatchingQueue.WaitingEntry> pool,
+            BiPredicate<Long, Long> canPair) {
+
+        Map<MatchingQueue.BucketKey, List<MatchingQueue.WaitingEntry>> byKey = new LinkedHashMap<>();
+        for (MatchingQueue.WaitingEntry entry : pool) {
+            byKey.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry);
+        }
+
+        List<MatchPair> pairs = new ArrayList<>();
+        Set<Long> paired = new HashSet<>();
+        Set<MatchingQueue.BucketKey> done = new HashSet<>();
+
+        for (Map.Entry<MatchingQueue.BucketKey, List<MatchingQueue.WaitingEntry>> group : byKey.entrySet()) {
+            MatchingQueue.BucketKey key = group.getKey();
+            MatchingQueue.BucketKey complement = key.complement();
+            if (done.contains(key)) {
+                continue;
+            }
+            done.add(key);
+            done.add(complement);
+
+            List<MatchingQueue.WaitingEntry> left = group.getValue();
+            List<MatchingQueue.WaitingEntry> right = byKey.get(complement);
+            if (right == null) {
+                continue;
+            }
+
+            for (MatchingQueue.WaitingEntry a : left) {
+                if (paired.contains(a.getUserId())) {
+                    continue;
+                }
+                for (MatchingQueue.WaitingEntry b : right) {
+                    if (b == a || paired.contains(b.getUserId())) {
+                        continue;
+                    }
+                    if (canPair.test(a.getUserId(), b.getUserId())) {
+                        pairs.add(new MatchPair(a, b));
+                        paired.add(a.getUserId());
+                        paired.add(b.getUserId());
+                        break;
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    public record MatchPair(MatchingQueue.WaitingEntry first, MatchingQueue.WaitingEntry second) {
+    }
+}
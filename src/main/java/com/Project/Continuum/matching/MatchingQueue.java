@@ -0,0 +1,262 @@
+package com.Project.Continuum.matching;
+
+import com.Project.Continuum.dto.MatchingRequest;
+import com.Project.Continuum.enums.PresenceStatus;
+import com.Project.Continuum.store.PresenceStatusListener;
+import com.Project.Continuum.store.PresenceStore;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Category-aware waiting queue for real-time matching.
+ * 
+ * Waiters are bucketed by (category, teachSkillId, learnSkillId). A joiner
+ * looks only at the complementary bucket (category, learnSkillId,
+ * teachSkillId), so everyone found there teaches what the joiner wants to
+ * learn and learns what the joiner teaches.
+ * 
+ * A bucket and its complement share one striped lock. "Claim or enqueue"
+ * runs under it as a single step, so two complementary users joining at the
+ * same moment always find each other instead of both ending up WAITING.
+ * Bucket entries are unlinked when their waiter is claimed or removed, and
+ * empty buckets are dropped.
+ */
+@Component
+public class MatchingQueue implements PresenceStatusListener {
+
+    // userId -> current waiting entry
+    private final Map<Long, WaitingEntry> waiting = new ConcurrentHashMap<>();
+
+    // compatibility key -> waiters in FIFO order; guarded by lockFor(key)
+    private final Map<BucketKey, Deque<WaitingEntry>> buckets = new ConcurrentHashMap<>();
+
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final PresenceStore presenceStore;
+    private final Clock clock;
+
+    public MatchingQueue(PresenceStore presenceStore, Clock clock) {
+        this.presenceStore = presenceStore;
+        this.clock = clock;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        presenceStore.addStatusListener(this);
+    }
+
+    /**
+     * Add (or replace) a user's waiting entry.
+     */
+    public void enqueue(Long userId, MatchingRequest request) {
+        remove(userId);
+
+        WaitingEntry entry = new WaitingEntry(userId, request, Instant.now(clock));
+        synchronized (lockFor(entry.getKey())) {
+            link(entry);
+        }
+    }
+
+    /**
+     * Claim the oldest complementary waiter accepted by the filter, or enqueue
+     * the joiner if there is none - as one step under the bucket pair's lock.
+     * Returns the claimed waiter, or null if the joiner is now waiting.
+     */
+    public WaitingEntry claimOrEnqueue(Long userId, MatchingRequest request, Predicate<Long> partnerFilter) {
+        remove(userId);
+
+        WaitingEntry joiner = new WaitingEntry(userId, request, Instant.now(clock));
+        synchronized (lockFor(joiner.getKey())) {
+            WaitingEntry claimed = claimLocked(userId, joiner.getKey().complement(), partnerFilter);
+            if (claimed == null) {
+                link(joiner);
+            }
+            return claimed;
+        }
+    }
+
+    /**
+     * Atomically claim two waiters at once (batch mode). Both are unlinked
+     * from their buckets; if either is already gone nothing is claimed and
+     * false is returned.
+     */
+    public boolean claimPair(WaitingEntry first, WaitingEntry second) {
+        int stripeA = stripe(first.getKey());
+        int stripeB = stripe(second.getKey());
+        // Lower stripe first, so two pairs never deadlock
+        Object outer = locks[Math.min(stripeA, stripeB)];
+        Object inner = locks[Math.max(stripeA, stripeB)];
+
+        synchronized (outer) {
+            synchronized (inner) {
+                if (waiting.get(first.getUserId()) != first || waiting.get(second.getUserId()) != second) {
+                    return false;
+                }
+                waiting.remove(first.getUserId(), first);
+                waiting.remove(second.getUserId(), second);
+                unlink(first);
+                unlink(second);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Put a claimed waiter back with its original request and enqueue time,
+     * e.g. when the session for its match could not be created. No-op if the
+     * user has re-joined meanwhile.
+     */
+    public void requeue(WaitingEntry entry) {
+        synchronized (lockFor(entry.getKey())) {
+            if (waiting.putIfAbsent(entry.getUserId(), entry) == null) {
+                buckets.computeIfAbsent(entry.getKey(), k -> new ArrayDeque<>()).offerLast(entry);
+            }
+        }
+    }
+
+    /**
+     * Current waiters, oldest first.
+     */
+    public List<WaitingEntry> snapshot() {
+        List<WaitingEntry> entries = new ArrayList<>(waiting.values());
+        entries.sort(Comparator.comparing(WaitingEntry::getEnqueuedAt));
+        return entries;
+    }
+
+    public void remove(Long userId) {
+        WaitingEntry entry;
+        while ((entry = waiting.get(userId)) != null) {
+            synchronized (lockFor(entry.getKey())) {
+                if (waiting.remove(userId, entry)) {
+                    unlink(entry);
+                    return;
+                }
+            }
+            // Replaced or claimed meanwhile - look again
+        }
+    }
+
+    public int size() {
+        return waiting.size();
+    }
+
+    @Override
+    public void onStatusChange(Long userId, PresenceStatus previous, PresenceStatus current) {
+        // Re-read: a late OFFLINE must not drop a user who has since come back
+        if (current == PresenceStatus.OFFLINE && presenceStore.getStatus(userId) == PresenceStatus.OFFLINE) {
+            remove(userId);
+        }
+    }
+
+    // ==================== INTERNAL ====================
+
+    // Caller holds lockFor(complement)
+    private WaitingEntry claimLocked(Long userId, BucketKey complement, Predicate<Long> partnerFilter) {
+        Deque<WaitingEntry> bucket = buckets.get(complement);
+        if (bucket == null) {
+            return null;
+        }
+
+        WaitingEntry claimed = null;
+        Iterator<WaitingEntry> it = bucket.iterator();
+        while (it.hasNext()) {
+            WaitingEntry candidate = it.next();
+
+            // Stale: superseded by a concurrent re-join of the same user
+            if (waiting.get(candidate.getUserId()) != candidate) {
+                it.remove();
+                continue;
+            }
+
+            if (candidate.getUserId().equals(userId) || !partnerFilter.test(candidate.getUserId())) {
+                continue;
+            }
+            if (waiting.remove(candidate.getUserId(), candidate)) {
+                it.remove();
+                claimed = candidate;
+                break;
+            }
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(complement, bucket);
+        }
+        return claimed;
+    }
+
+    // Caller holds lockFor(entry.getKey())
+    private void link(WaitingEntry entry) {
+        waiting.put(entry.getUserId(), entry);
+        buckets.computeIfAbsent(entry.getKey(), k -> new ArrayDeque<>()).offerLast(entry);
+    }
+
+    // Caller holds lockFor(entry.getKey())
+    private void unlink(WaitingEntry entry) {
+        buckets.computeIfPresent(entry.getKey(), (k, bucket) -> {
+            bucket.remove(entry);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    // A bucket and its complement map to the same stripe
+    private Object lockFor(BucketKey key) {
+        return locks[stripe(key)];
+    }
+
+    private static int stripe(BucketKey key) {
+        return Math.floorMod(key.pairHash(), LOCK_STRIPES);
+    }
+
+    public static final class WaitingEntry {
+        private final Long userId;
+        private final MatchingRequest request;
+        private final Instant enqueuedAt;
+        private final BucketKey key;
+
+        private WaitingEntry(Long userId, MatchingRequest request, Instant enqueuedAt) {
+            this.userId = userId;
+            this.request = request;
+            this.enqueuedAt = enqueuedAt;
+            this.key = new BucketKey(request.getCategory(), request.getTeachSkillId(), request.getLearnSkillId());
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public MatchingRequest getRequest() {
+            return request;
+        }
+
+        public Instant getEnqueuedAt() {
+            return enqueuedAt;
+        }
+
+        BucketKey getKey() {
+            return key;
+        }
+    }
+
+    record BucketKey(String category, Long teachSkillId, Long learnSkillId) {
+
+        BucketKey complement() {
+            return new BucketKey(category, learnSkillId, teachSkillId);
+        }
+
+        // Same for a key and its complement
+        int pairHash() {
+            return Objects.hashCode(category) * 31 + (Objects.hashCode(teachSkillId) ^ Objects.hashCode(learnSkillId));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.Project.Continuum.push;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces chat notifications per (recipient, sender) thread.
+ *
+ * Two windows are tracked:
+ * - Merge window: while a thread's notification row is unread and the last
+ *   message arrived within the window, new messages update that row
+ *   ("N new messages from X") instead of inserting another. N lives in the
+ *   row (message_count) and is incremented atomically in the DB.
+ * - Push window: the first message of a burst schedules one push at the end
+ *   of the window; later messages only replace its content. The push carries
+ *   a per-sender Web Push Topic so an undelivered earlier push is replaced
+ *   by the push service rather than stacked.
+ */
+@Component
+public class ChatNotificationCoalescer {
+
+    private final PushDispatcher pushDispatcher;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+    private final Duration mergeWindow;
+    private final Duration pushWindow;
+
+    private final Map<ThreadKey, ChatThread> threads = new ConcurrentHashMap<>();
+    private final Map<ThreadKey, PendingPush> pendingPushes = new ConcurrentHashMap<>();
+
+    public ChatNotificationCoalescer(
+            PushDispatcher pushDispatcher,
+            TaskScheduler taskScheduler,
+            Clock clock,
+            @Value("${notifications.chat-coalesce.merge-window:10m}") Duration mergeWindow,
+            @Value("${notifications.chat-coalesce.push-window:3s}") Duration pushWindow) {
+        this.pushDispatcher = pushDispatcher;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.mergeWindow = mergeWindow;
+        this.pushWindow = pushWindow;
+    }
+
+    // ==================== ROW MERGE ====================
+
+    /**
+     * The thread's current notification row, or null if there is none or the
+     * merge window has passed.
+     */
+    public ChatThread activeThread(Long recipientId, Long senderId) {
+        ChatThread thread = threads.get(new ThreadKey(recipientId, senderId));
+        if (thread == null || thread.lastAt().isBefore(Instant.now(clock).minus(mergeWindow))) {
+            return null;
+        }
+        return thread;
+    }
+
+    public void recordThread(Long recipientId, Long senderId, Long notificationId) {
+        threads.put(new ThreadKey(recipientId, senderId),
+                new ChatThread(notificationId, Instant.now(clock)));
+    }
+
+    /**
+     * Called once the recipient has read the thread's notifications, so the
+     * next message starts a fresh row.
+     */
+    public void endThread(Long recipientId, Long senderId) {
+        threads.remove(new ThreadKey(recipientId, senderId));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredThreads() {
+        Instant cutoff = Instant.now(clock).minus(mergeWindow);
+        threads.values().removeIf(thread -> thread.lastAt().isBefore(cutoff));
+    }
+
+    // ==================== PUSH WINDOW ====================
+
+    /**
+     * Queue (or refresh) the thread's pending push. It is sent once, at the
+     * end of the push window, with the latest title/body. Registration waits
+     * for the current transaction to commit.
+     */
+    public void schedulePush(Long recipientId, Long senderId, String title, String body, String data) {
+        ThreadKey key = new ThreadKey(recipientId, senderId);
+        PendingPush push = new PendingPush(title, body, data);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(key, push);
+                }
+            });
+            return;
+        }
+
+        enqueue(key, push);
+    }
+
+    private void enqueue(ThreadKey key, PendingPush push) {
+        // Only the first push of a burst schedules the flush; later ones just replace the content
+        if (pendingPushes.put(key, push) == null) {
+            taskScheduler.schedule(() -> flush(key), Instant.now(clock).plus(pushWindow));
+        }
+    }
+
+    private void flush(ThreadKey key) {
+        PendingPush push = pendingPushes.remove(key);
+        if (push != null) {
+            pushDispatcher.dispatch(key.recipientId(), push.title(), push.body(), push.data(),
+                    topicFor(key.senderId()));
+        }
+    }
+
+    // Topic: <= 32 chars from the URL-safe base64 alphabet
+    static String topicFor(Long senderId) {
+        return "chat-" + senderId;
+    }
+
+    public record ChatThread(Long notificationId, Instant lastAt) {
+    }
+
+    private record ThreadKey(Long recipientId, Long senderId) {
+    }
+
+    private record PendingPush(String title, String body, String data) {
+    }
+}
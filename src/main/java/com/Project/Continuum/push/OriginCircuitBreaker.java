@@ -0,0 +1,91 @@
+package com.Project.Continuum.push;
+
+import java.time.Clock;
+
+/**
+ * Circuit breaker for a single push service origin.
+ *
+ * CLOSED: requests flow; consecutive retryable failures are counted.
+ * OPEN: after {@code failureThreshold} failures, requests are rejected
+ * without touching the network until {@code openMs} has elapsed.
+ * HALF_OPEN: one trial request is let through; success closes the circuit,
+ * failure re-opens it.
+ */
+final class OriginCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMs;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMs;
+    private boolean trialInFlight;
+
+    OriginCircuitBreaker(int failureThreshold, long openMs, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+    }
+
+    synchronized boolean allowRequest() {
+        if (state == State.OPEN && clock.millis() - openedAtMs >= openMs) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * The permitted request was never sent (local failure): hand back a
+     * half-open trial slot without counting it either way.
+     */
+    synchronized void releaseRequest() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMs = clock.millis();
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Milliseconds until the circuit may half-open again (0 when not open).
+     */
+    synchronized long remainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMs - (clock.millis() - openedAtMs));
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
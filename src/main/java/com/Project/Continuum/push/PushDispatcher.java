@@ -0,0 +1,165 @@
+package com.Project.Continuum.push;
+
+import com.Project.Continuum.service.PushNotificationService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous push fan-out stage.
+ *
+ * Callers hand over a push job; it is queued only after the surrounding
+ * transaction commits (immediately when there is none), so a rolled-back
+ * notification never produces a push and the request thread never waits on
+ * a third-party push endpoint.
+ *
+ * The queue is bounded. When it is full the job is dropped and counted - the
+ * persisted Notification row stays the source of truth for the user.
+ * A fixed set of virtual-thread workers drains the queue.
+ */
+@Component
+public class PushDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PushDispatcher.class);
+
+    private final PushNotificationService pushService;
+    private final BlockingQueue<PushJob> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final long shutdownDrainMs;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public PushDispatcher(
+            PushNotificationService pushService,
+            @Value("${push.dispatch.queue-capacity:10000}") int queueCapacity,
+            @Value("${push.dispatch.workers:8}") int workerCount,
+            @Value("${push.dispatch.shutdown-drain-ms:5000}") long shutdownDrainMs) {
+        this.pushService = pushService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.shutdownDrainMs = shutdownDrainMs;
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("push-dispatch-" + i).start(this::workLoop));
+        }
+    }
+
+    /**
+     * Schedule a push to all of a user's devices once the current transaction
+     * (if any) has committed.
+     */
+    public void dispatch(Long userId, String title, String body, String data) {
+        dispatch(userId, title, body, data, null);
+    }
+
+    /**
+     * Same as {@link #dispatch(Long, String, String, String)}, tagging the
+     * push with a Web Push Topic so the push service collapses it with
+     * earlier undelivered pushes of the same topic.
+     */
+    public void dispatch(Long userId, String title, String body, String data, String topic) {
+        PushJob job = new PushJob(userId, title, body, data, topic);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(job);
+                }
+            });
+            return;
+        }
+
+        enqueue(job);
+    }
+
+    private void enqueue(PushJob job) {
+        if (!running || !queue.offer(job)) {
+            long total = dropped.incrementAndGet();
+            log.warn("Push queue full or stopped - dropping push for user {} (dropped so far: {})",
+                    job.userId(), total);
+        }
+    }
+
+    private void workLoop() {
+        while (running || !queue.isEmpty()) {
+            PushJob job;
+            try {
+                job = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (job == null) {
+                continue;
+            }
+
+            try {
+                pushService.sendToUser(job.userId(), job.title(), job.body(), job.data(), job.topic());
+                dispatched.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Push dispatch failed for user {}: {}", job.userId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop accepting new jobs and give the workers a bounded window to drain
+     * what is already queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownDrainMs;
+        for (Thread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                if (remaining > 0) {
+                    worker.join(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.forEach(Thread::interrupt);
+
+        if (!queue.isEmpty()) {
+            log.warn("Push dispatcher stopped with {} undelivered job(s)", queue.size());
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    record PushJob(Long userId, String title, String body, String data, String topic) {
+    }
+}
@@ -0,0 +1,465 @@
+package com.Project.Continuum.push;
+
+import com.Project.Continuum.entity.PushDeadLetter;
+import com.Project.Continuum.entity.PushSubscription;
+import com.Project.Continuum.repository.PushDeadLetterRepository;
+import com.Project.Continuum.repository.PushSubscriptionRepository;
+import jakarta.annotation.PreDestroy;
+import nl.martijndwars.webpush.Encoding;
+import nl.martijndwars.webpush.Notification;
+import nl.martijndwars.webpush.PushService;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Web Push delivery engine (PROD).
+ *
+ * - One shared keep-alive HTTP connection pool; routes are per push service
+ *   origin (FCM, Mozilla autopush, WNS, ...), so connections are reused
+ *   across users hitting the same origin.
+ * - A user's devices are sent to concurrently on virtual threads.
+ * - In-flight requests are bounded per origin by a semaphore sized like the
+ *   pool route, so a slow origin cannot absorb every worker.
+ * - Successful sends only record lastUsedAt in memory; a scheduled flush
+ *   persists them with one UPDATE per interval.
+ * - 429, 5xx and I/O failures are retried with exponential backoff (or the
+ *   server's Retry-After). Those failures also feed a per-origin circuit
+ *   breaker that short-circuits sends while the origin is degraded.
+ * - Pushes that cannot be delivered end up in push_dead_letters.
+ */
+@Component
+@Profile("prod")
+public class WebPushDeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(WebPushDeliveryEngine.class);
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private final PushSubscriptionRepository subscriptionRepository;
+    private final PushDeadLetterRepository deadLetterRepository;
+    private final Clock clock;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxInFlightPerOrigin;
+    private final long permitTimeoutMs;
+    private final Map<String, Semaphore> inFlightByOrigin = new ConcurrentHashMap<>();
+
+    // subscriptionId -> last successful delivery, waiting to be flushed
+    private final Map<Long, Instant> pendingLastUsed = new ConcurrentHashMap<>();
+
+    private final Map<String, OriginCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("push-retry").daemon(true).factory());
+
+    @Value("${push.delivery.retry.max-attempts:4}")
+    private int retryMaxAttempts;
+
+    @Value("${push.delivery.retry.base-delay-ms:1000}")
+    private long retryBaseDelayMs;
+
+    @Value("${push.delivery.retry.max-delay-ms:60000}")
+    private long retryMaxDelayMs;
+
+    @Value("${push.delivery.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${push.delivery.circuit.open-ms:30000}")
+    private long circuitOpenMs;
+
+    public WebPushDeliveryEngine(
+            PushSubscriptionRepository subscriptionRepository,
+            PushDeadLetterRepository deadLetterRepository,
+            Clock clock,
+            @Value("${push.delivery.max-connections:200}") int maxConnections,
+            @Value("${push.delivery.max-in-flight-per-origin:32}") int maxInFlightPerOrigin,
+            @Value("${push.delivery.permit-timeout-ms:5000}") long permitTimeoutMs,
+            @Value("${push.delivery.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${push.delivery.socket-timeout-ms:10000}") int socketTimeoutMs) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.clock = clock;
+        this.maxInFlightPerOrigin = maxInFlightPerOrigin;
+        this.permitTimeoutMs = permitTimeoutMs;
+
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxInFlightPerOrigin);
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setConnectionRequestTimeout(connectTimeoutMs)
+                        .setSocketTimeout(socketTimeoutMs)
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Deliver one payload to every subscription, concurrently, and wait for
+     * the first attempt of each to finish. Retries are scheduled in the
+     * background and never hold the caller.
+     */
+    public void deliver(PushService pushService, List<PushSubscription> subscriptions, String payload,
+            String topic) {
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        if (subscriptions.size() == 1) {
+            attempt(new Delivery(pushService, subscriptions.get(0), payloadBytes, topic, 1));
+            return;
+        }
+
+        List<CompletableFuture<Void>> attempts = new ArrayList<>(subscriptions.size());
+        for (PushSubscription sub : subscriptions) {
+            Delivery delivery = new Delivery(pushService, sub, payloadBytes, topic, 1);
+            attempts.add(CompletableFuture.runAsync(() -> attempt(delivery), executor));
+        }
+        CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void attempt(Delivery delivery) {
+        PushSubscription sub = delivery.subscription();
+        String origin = originOf(sub.getEndpoint());
+        Semaphore permits = inFlightByOrigin.computeIfAbsent(origin, o -> new Semaphore(maxInFlightPerOrigin));
+
+        try {
+            if (!permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                retryOrDeadLetter(delivery, null, "in-flight limit reached for " + origin, null);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            OriginCircuitBreaker breaker = circuitBreakers.computeIfAbsent(origin,
+                    o -> new OriginCircuitBreaker(circuitFailureThreshold, circuitOpenMs, clock));
+            if (!breaker.allowRequest()) {
+                // Fail fast without a network round trip; try again once the circuit may half-open
+                retryOrDeadLetter(delivery, null, "circuit open for " + origin,
+                        Math.max(breaker.remainingOpenMs(), backoffMs(delivery.attempt())));
+                return;
+            }
+
+            HttpPost post;
+            try {
+                post = delivery.pushService().preparePost(buildNotification(delivery), Encoding.AES128GCM);
+            } catch (Exception e) {
+                // Encryption/signing problems are not the origin's fault and won't heal on retry.
+                // Nothing was sent, so the breaker state is left as it is.
+                breaker.releaseRequest();
+                deadLetter(delivery, null, "request preparation failed: " + e.getMessage());
+                return;
+            }
+
+            try (CloseableHttpResponse response = httpClient.execute(post)) {
+                handleResponse(delivery, breaker, response);
+            } catch (IOException e) {
+                // Connect/socket timeouts, resets, DNS failures
+                breaker.recordFailure();
+                log.warn("Push failed for endpoint {} (attempt {}): {}",
+                        shortEndpoint(sub), delivery.attempt(), e.getMessage());
+                retryOrDeadLetter(delivery, null, e.getClass().getSimpleName() + ": " + e.getMessage(), null);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void handleResponse(Delivery delivery, OriginCircuitBreaker breaker, HttpResponse response) {
+        PushSubscription sub = delivery.subscription();
+        int statusCode = response != null && response.getStatusLine() != null
+                ? response.getStatusLine().getStatusCode()
+                : -1;
+        String reason = response != null && response.getStatusLine() != null
+                ? response.getStatusLine().getReasonPhrase()
+                : "unknown";
+
+        if (statusCode >= 200 && statusCode < 300) {
+            breaker.recordSuccess();
+            consumeQuietly(response);
+            pendingLastUsed.put(sub.getId(), Instant.now(clock));
+            log.info("Push accepted for user {} endpoint {} (status={} {})",
+                    sub.getUserId(), shortEndpoint(sub), statusCode, reason);
+            return;
+        }
+
+        String responseBody = extractResponseBody(response);
+        log.warn("Push rejected for endpoint {} (status={} {}, attempt={}, body={})",
+                shortEndpoint(sub), statusCode, reason, delivery.attempt(), responseBody);
+
+        if (isStaleStatusCode(statusCode)) {
+            breaker.recordSuccess();
+            log.info("Removing stale subscription for user {}", sub.getUserId());
+            pendingLastUsed.remove(sub.getId());
+            subscriptionRepository.delete(sub);
+            return;
+        }
+
+        if (isRetryableStatusCode(statusCode)) {
+            breaker.recordFailure();
+            retryOrDeadLetter(delivery, statusCode, statusCode + " " + reason, parseRetryAfterMs(response));
+            return;
+        }
+
+        // Other 4xx (bad payload, auth, too large): the origin is healthy, the request is not
+        breaker.recordSuccess();
+        deadLetter(delivery, statusCode, statusCode + " " + reason + (responseBody.isEmpty() ? "" : ": " + responseBody));
+    }
+
+    /**
+     * Schedule another attempt after the server-requested or exponential
+     * delay, or dead-letter the push if attempts are exhausted or the delay
+     * would exceed the configured maximum.
+     */
+    private void retryOrDeadLetter(Delivery delivery, Integer statusCode, String reason, Long requestedDelayMs) {
+        if (delivery.attempt() >= retryMaxAttempts) {
+            deadLetter(delivery, statusCode, reason + " (gave up after " + delivery.attempt() + " attempts)");
+            return;
+        }
+
+        long delayMs = requestedDelayMs != null ? requestedDelayMs : backoffMs(delivery.attempt());
+        if (delayMs > retryMaxDelayMs) {
+            deadLetter(delivery, statusCode, reason + " (retry delay " + delayMs + "ms exceeds limit)");
+            return;
+        }
+
+        try {
+            retryScheduler.schedule(() -> executor.execute(() -> attempt(delivery.next())),
+                    delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            deadLetter(delivery, statusCode, reason + " (shutting down)");
+        }
+    }
+
+    // base * 2^(attempt-1), capped, with +/-20% jitter so bursts don't retry in lockstep
+    private long backoffMs(int attempt) {
+        long exp = retryBaseDelayMs << Math.min(attempt - 1, 20);
+        long capped = Math.min(exp, retryMaxDelayMs);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (capped * jitter);
+    }
+
+    private void deadLetter(Delivery delivery, Integer statusCode, String reason) {
+        PushSubscription sub = delivery.subscription();
+        log.warn("Dead-lettering push for user {} endpoint {}: {}", sub.getUserId(), shortEndpoint(sub), reason);
+
+        try {
+            PushDeadLetter letter = new PushDeadLetter();
+            letter.setUserId(sub.getUserId());
+            letter.setSubscriptionId(sub.getId());
+            letter.setEndpointOrigin(truncate(originOf(sub.getEndpoint()), 255));
+            letter.setTopic(truncate(delivery.topic(), 32));
+            letter.setStatusCode(statusCode);
+            letter.setReason(truncate(reason, 500));
+            letter.setAttempts(delivery.attempt());
+            // Never the payload itself: it carries chat previews
+            letter.setPayloadSha256(sha256(delivery.payload()));
+            letter.setPayloadSize(delivery.payload() != null ? delivery.payload().length : null);
+            letter.setFailedAt(Instant.now(clock));
+            deadLetterRepository.save(letter);
+        } catch (Exception e) {
+            log.error("Failed to record dead-lettered push for user {}: {}", sub.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Persist buffered lastUsedAt values. Each chunk is stamped with the most
+     * recent delivery time it contains - the column is informational, so
+     * flush-interval precision is enough.
+     */
+    @Scheduled(fixedDelayString = "${push.delivery.last-used-flush-ms:30000}")
+    public void flushLastUsed() {
+        if (pendingLastUsed.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(FLUSH_CHUNK_SIZE);
+        Instant latest = null;
+        for (Long id : new ArrayList<>(pendingLastUsed.keySet())) {
+            Instant usedAt = pendingLastUsed.remove(id);
+            if (usedAt == null) {
+                continue;
+            }
+            ids.add(id);
+            latest = latest == null || usedAt.isAfter(latest) ? usedAt : latest;
+
+            if (ids.size() == FLUSH_CHUNK_SIZE) {
+                subscriptionRepository.touchLastUsed(ids, latest);
+                ids = new ArrayList<>(FLUSH_CHUNK_SIZE);
+                latest = null;
+            }
+        }
+        if (!ids.isEmpty()) {
+            subscriptionRepository.touchLastUsed(ids, latest);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> pendingRetries = retryScheduler.shutdownNow();
+        if (!pendingRetries.isEmpty()) {
+            log.warn("Push engine stopped with {} retry(ies) still scheduled", pendingRetries.size());
+        }
+        executor.shutdown();
+        try {
+            flushLastUsed();
+        } catch (Exception e) {
+            log.warn("Final lastUsedAt flush failed: {}", e.getMessage());
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.debug("Closing push HTTP client failed: {}", e.getMessage());
+        }
+    }
+
+    static String originOf(String endpoint) {
+        try {
+            URI uri = URI.create(endpoint);
+            return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        } catch (IllegalArgumentException e) {
+            return endpoint;
+        }
+    }
+
+    private static String truncate(String value, int max) {
+        return value != null && value.length() > max ? value.substring(0, max) : value;
+    }
+
+    private static String sha256(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String shortEndpoint(PushSubscription sub) {
+        return sub.getEndpoint().substring(0, Math.min(50, sub.getEndpoint().length()));
+    }
+
+    private static boolean isStaleStatusCode(int statusCode) {
+        return statusCode == 404 || statusCode == 410;
+    }
+
+    private static boolean isRetryableStatusCode(int statusCode) {
+        return statusCode == 429 || statusCode >= 500 || statusCode == -1;
+    }
+
+    /**
+     * Retry-After is either delta-seconds or an HTTP-date. Returns null when
+     * absent or unparseable.
+     */
+    private Long parseRetryAfterMs(HttpResponse response) {
+        Header header = response != null ? response.getFirstHeader("Retry-After") : null;
+        if (header == null || header.getValue() == null) {
+            return null;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value)) * 1000;
+        } catch (NumberFormatException ignored) {
+            Date date = DateUtils.parseDate(value);
+            return date != null ? Math.max(0, date.getTime() - clock.millis()) : null;
+        }
+    }
+
+    private static Notification buildNotification(Delivery delivery) throws Exception {
+        PushSubscription sub = delivery.subscription();
+        Notification notification = new Notification(
+                sub.getEndpoint(), sub.getP256dh(), sub.getAuth(), delivery.payload());
+        if (delivery.topic() == null) {
+            return notification;
+        }
+        return new Notification(
+                notification.getEndpoint(),
+                notification.getUserPublicKey(),
+                notification.getUserAuth(),
+                notification.getPayload(),
+                notification.getTTL(),
+                notification.getUrgency(),
+                delivery.topic());
+    }
+
+    record Delivery(PushService pushService, PushSubscription subscription, byte[] payload, String topic,
+            int attempt) {
+        Delivery next() {
+            return new Delivery(pushService, subscription, payload, topic, attempt + 1);
+        }
+    }
+
+    private static void consumeQuietly(HttpResponse response) {
+        try {
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException ignored) {
+            // Connection is released by the response close either way
+        }
+    }
+
+    private static String extractResponseBody(HttpResponse response) {
+        if (response == null) {
+            return "";
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return "";
+        }
+        try {
+            String body = EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            if (body == null) {
+                return "";
+            }
+            String trimmed = body.replaceAll("\\s+", " ").trim();
+            return trimmed.length() > 300 ? trimmed.substring(0, 300) + "..." : trimmed;
+        } catch (Exception ignored) {
+            return "";
+        }
+    }
+}
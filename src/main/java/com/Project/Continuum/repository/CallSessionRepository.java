@@ -1,11 +1,18 @@
 package com.Project.Continuum.repository;
 
 import com.Project.Continuum.entity.CallSession;
+import com.Project.Continuum.enums.CallEndReason;
 import com.Project.Continuum.enums.CallStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,14 +20,19 @@ public interface CallSessionRepository extends JpaRepository<CallSession, Long>
 
         /**
          * Find active call for a user (as caller or receiver) in RINGING or ACCEPTED
-         * status
+         * status.
+         * Caller and receiver side are probed separately (idx_call_caller_status,
+         * idx_call_receiver_status), as in {@link #hasActiveCall(Long)}.
          */
-        @Query("SELECT c FROM CallSession c WHERE " +
-                        "(c.caller.id = :userId OR c.receiver.id = :userId) " +
-                        "AND c.status IN :statuses")
-        List<CallSession> findActiveCallsByUserId(
-                        @Param("userId") Long userId,
-                        @Param("statuses") List<CallStatus> statuses);
+        default List<CallSession> findActiveCallsByUserId(Long userId, List<CallStatus> statuses) {
+                List<CallSession> calls = new ArrayList<>(findByCaller_IdAndStatusIn(userId, statuses));
+                calls.addAll(findByReceiver_IdAndStatusIn(userId, statuses));
+                return calls;
+        }
+
+        List<CallSession> findByCaller_IdAndStatusIn(Long callerId, Collection<CallStatus> statuses);
+
+        List<CallSession> findByReceiver_IdAndStatusIn(Long receiverId, Collection<CallStatus> statuses);
 
         /**
          * Find active call by ID and user (for authorization)
@@ -43,11 +55,48 @@ public interface CallSessionRepository extends JpaRepository<CallSession, Long>
                         @Param("statuses") List<CallStatus> statuses);
 
         /**
-         * Check if user has any active call (RINGING or ACCEPTED)
+         * Check if user has any active call (RINGING or ACCEPTED).
+         * Two single-column-side probes, served by idx_call_caller_status and
+         * idx_call_receiver_status, instead of an OR across both columns.
          */
         default boolean hasActiveCall(Long userId) {
-                return !findActiveCallsByUserId(userId, List.of(CallStatus.RINGING, CallStatus.ACCEPTED)).isEmpty();
+                List<CallStatus> active = List.of(CallStatus.RINGING, CallStatus.ACCEPTED);
+                return existsByCaller_IdAndStatusIn(userId, active) || existsByReceiver_IdAndStatusIn(userId, active);
         }
 
+        boolean existsByCaller_IdAndStatusIn(Long callerId, Collection<CallStatus> statuses);
+
+        boolean existsByReceiver_IdAndStatusIn(Long receiverId, Collection<CallStatus> statuses);
+
+        // ==================== STATUS RANGE (paged) ====================
+
+        /**
+         * (id, callerId, receiverId) of calls in the given statuses initiated
+         * before the cutoff, oldest first. Lets batch jobs end calls and notify
+         * participants without loading the entities. Served by
+         * idx_call_status_initiated.
+         */
+        @Query("SELECT c.id, c.caller.id, c.receiver.id FROM CallSession c " +
+                        "WHERE c.status IN :statuses AND c.initiatedAt < :cutoff " +
+                        "ORDER BY c.initiatedAt ASC, c.id ASC")
+        List<Object[]> findParticipantsByStatusInitiatedBefore(
+                        @Param("statuses") Collection<CallStatus> statuses,
+                        @Param("cutoff") Instant cutoff,
+                        Pageable pageable);
+
+        /**
+         * End the given calls in one statement. Calls that left the given
+         * statuses in the meantime are skipped.
+         */
+        @Modifying
+        @Transactional
+        @Query("UPDATE CallSession c SET c.status = com.Project.Continuum.enums.CallStatus.ENDED, " +
+                        "c.endedAt = :endedAt, c.endReason = :reason " +
+                        "WHERE c.id IN :ids AND c.status IN :statuses")
+        int endCalls(@Param("ids") Collection<Long> ids,
+                        @Param("statuses") Collection<CallStatus> statuses,
+                        @Param("endedAt") Instant endedAt,
+                        @Param("reason") CallEndReason reason);
+
         void deleteByCaller_IdOrReceiver_Id(Long callerId, Long receiverId);
 }
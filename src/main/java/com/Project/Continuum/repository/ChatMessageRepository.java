@@ -1,20 +1,139 @@
 package com.Project.Continuum.repository;
 
 import com.Project.Continuum.entity.ChatMessage;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    List<ChatMessage> findBySender_IdAndRecipient_IdOrSender_IdAndRecipient_IdOrderBySentAtAsc(
-            Long senderId1, Long recipientId1,
-            Long senderId2, Long recipientId2);
+    // ==================== RECEIPTS (set-based) ====================
+    // Each receipt path locks the affected rows while selecting their
+    // (id, senderId) pairs (FOR UPDATE, in id order), then applies one UPDATE
+    // guarded by the same predicate. A concurrent caller blocks on the row
+    // locks and, once the first commits, re-checks the predicate and gets
+    // nothing - so each transition is reported exactly once.
 
-    List<ChatMessage> findByRecipient_IdAndDeliveredAtIsNull(Long recipientId);
+    // Unseen messages among :messageIds that were sent to :userId
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT c.id, c.sender.id FROM ChatMessage c
+            WHERE c.id IN :messageIds
+            AND c.recipient.id = :userId
+            AND c.seenAt IS NULL
+            ORDER BY c.id
+            """)
+    List<Object[]> lockUnseenIdsAndSenders(
+            @Param("userId") Long userId,
+            @Param("messageIds") List<Long> messageIds);
+
+    @Modifying
+    @Query("""
+            UPDATE ChatMessage c
+            SET c.seenAt = :seenAt, c.deliveredAt = COALESCE(c.deliveredAt, :seenAt)
+            WHERE c.id IN :messageIds
+            AND c.seenAt IS NULL
+            """)
+    int markSeen(@Param("messageIds") List<Long> messageIds, @Param("seenAt") Instant seenAt);
+
+    // Served by the partial index idx_chat_recipient_undelivered (delivered_at IS NULL)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT c.id, c.sender.id FROM ChatMessage c
+            WHERE c.recipient.id = :recipientId
+            AND c.deliveredAt IS NULL
+            ORDER BY c.id
+            """)
+    List<Object[]> lockUndeliveredIdsAndSenders(@Param("recipientId") Long recipientId);
+
+    @Modifying
+    @Query("""
+            UPDATE ChatMessage c
+            SET c.deliveredAt = :deliveredAt
+            WHERE c.id IN :messageIds
+            AND c.deliveredAt IS NULL
+            """)
+    int markDelivered(@Param("messageIds") List<Long> messageIds, @Param("deliveredAt") Instant deliveredAt);
+
+    // ==================== CLEAR CHAT (set-based) ====================
+    // Both range-scan idx_chat_conversation_sent
+
+    @Modifying
+    @Query("""
+            UPDATE ChatMessage c SET c.deletedForSender = true
+            WHERE c.conversationKey = :conversationKey
+            AND c.sender.id = :userId
+            AND c.deletedForSender = false
+            """)
+    int clearForSender(@Param("conversationKey") String conversationKey, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("""
+            UPDATE ChatMessage c SET c.deletedForReceiver = true
+            WHERE c.conversationKey = :conversationKey
+            AND c.recipient.id = :userId
+            AND c.deletedForReceiver = false
+            """)
+    int clearForReceiver(@Param("conversationKey") String conversationKey, @Param("userId") Long userId);
+
+    // Conversation visible to :userId (own deletions filtered in SQL, global
+    // deletions kept as tombstones), with reply metadata fetched in the same query.
+    // All history queries range-scan idx_chat_conversation_sent.
+    @Query("""
+            SELECT c FROM ChatMessage c
+            LEFT JOIN FETCH c.replyTo r
+            LEFT JOIN FETCH r.sender
+            WHERE c.conversationKey = :conversationKey
+            AND (c.deletedGlobally = true
+                OR (c.sender.id = :userId AND c.deletedForSender = false)
+                OR (c.sender.id <> :userId AND c.deletedForReceiver = false))
+            ORDER BY c.sentAt ASC, c.id ASC
+            """)
+    List<ChatMessage> findVisibleConversation(
+            @Param("conversationKey") String conversationKey,
+            @Param("userId") Long userId);
+
+    // Keyset page: newest visible messages first
+    @Query("""
+            SELECT c FROM ChatMessage c
+            LEFT JOIN FETCH c.replyTo r
+            LEFT JOIN FETCH r.sender
+            WHERE c.conversationKey = :conversationKey
+            AND (c.deletedGlobally = true
+                OR (c.sender.id = :userId AND c.deletedForSender = false)
+                OR (c.sender.id <> :userId AND c.deletedForReceiver = false))
+            ORDER BY c.sentAt DESC, c.id DESC
+            """)
+    List<ChatMessage> findVisibleConversationLatest(
+            @Param("conversationKey") String conversationKey,
+            @Param("userId") Long userId,
+            Pageable pageable);
+
+    // Keyset page: visible messages strictly older than the (sentAt, id) cursor
+    @Query("""
+            SELECT c FROM ChatMessage c
+            LEFT JOIN FETCH c.replyTo r
+            LEFT JOIN FETCH r.sender
+            WHERE c.conversationKey = :conversationKey
+            AND (c.deletedGlobally = true
+                OR (c.sender.id = :userId AND c.deletedForSender = false)
+                OR (c.sender.id <> :userId AND c.deletedForReceiver = false))
+            AND (c.sentAt < :beforeSentAt OR (c.sentAt = :beforeSentAt AND c.id < :beforeId))
+            ORDER BY c.sentAt DESC, c.id DESC
+            """)
+    List<ChatMessage> findVisibleConversationBefore(
+            @Param("conversationKey") String conversationKey,
+            @Param("userId") Long userId,
+            @Param("beforeSentAt") Instant beforeSentAt,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
 
     @Query("SELECT DISTINCT c.sender.id FROM ChatMessage c WHERE c.recipient.id = :userId")
     List<Long> findDistinctSendersByRecipientId(@Param("userId") Long userId);
@@ -51,5 +51,14 @@ public interface ExchangeSessionRepository
                         "AND s.endedAt > :since")
         List<Long> findRecentlyMetUserIds(@Param("userId") Long userId, @Param("since") java.time.Instant since);
 
+        // 🔹 Recently met pairs (userA, userB) where both sides are in the given set
+        @Query("SELECT s.userA.id, s.userB.id " +
+                        "FROM ExchangeSession s " +
+                        "WHERE s.userA.id IN :userIds AND s.userB.id IN :userIds " +
+                        "AND s.status = 'COMPLETED' " +
+                        "AND s.endedAt > :since")
+        List<Object[]> findRecentlyMetPairsAmong(@Param("userIds") Collection<Long> userIds,
+                        @Param("since") java.time.Instant since);
+
         void deleteByUserA_IdOrUserB_Id(Long userAId, Long userBId);
 }
@@ -17,6 +17,31 @@ public interface FriendRepository extends JpaRepository<Friend, Long> {
     // Get specific friendship
     java.util.Optional<Friend> findByUser1_IdAndUser2_Id(Long user1Id, Long user2Id);
 
+    // (otherUserId, status) for every friendship row of userId - loads FriendGraph adjacency
+    @org.springframework.data.jpa.repository.Query("SELECT CASE WHEN f.user1.id = :userId THEN f.user2.id ELSE f.user1.id END, f.status " +
+            "FROM Friend f " +
+            "WHERE f.user1.id = :userId OR f.user2.id = :userId")
+    List<Object[]> findEdgesOfUser(@org.springframework.data.repository.query.Param("userId") Long userId);
+
+    // Contacts page: ACCEPTED friends plus anyone userId has chatted with, ordered by id
+    // after the cursor. Row: (id, name, profileImageUrl, role, ACCEPTED or null) - a
+    // pending/rejected request still counts as "not a friend" here
+    @org.springframework.data.jpa.repository.Query("SELECT u.id, u.name, u.profileImageUrl, u.role, f.status " +
+            "FROM User u " +
+            "LEFT JOIN Friend f ON ((f.user1.id = :userId AND f.user2.id = u.id) " +
+            "OR (f.user2.id = :userId AND f.user1.id = u.id)) " +
+            "AND f.status = com.Project.Continuum.enums.FriendStatus.ACCEPTED " +
+            "WHERE u.id > :afterId AND u.id <> :userId AND u.id IN (" +
+            "SELECT a.user2.id FROM Friend a WHERE a.user1.id = :userId AND a.status = com.Project.Continuum.enums.FriendStatus.ACCEPTED " +
+            "UNION SELECT a.user1.id FROM Friend a WHERE a.user2.id = :userId AND a.status = com.Project.Continuum.enums.FriendStatus.ACCEPTED " +
+            "UNION SELECT c.sender.id FROM ChatMessage c WHERE c.recipient.id = :userId " +
+            "UNION SELECT c.recipient.id FROM ChatMessage c WHERE c.sender.id = :userId) " +
+            "ORDER BY u.id ASC")
+    List<Object[]> findContactsPage(
+            @org.springframework.data.repository.query.Param("userId") Long userId,
+            @org.springframework.data.repository.query.Param("afterId") Long afterId,
+            org.springframework.data.domain.Pageable pageable);
+
     // Get all friends of a user
     List<Friend> findByUser1_IdOrUser2_Id(Long userId1, Long userId2);
 
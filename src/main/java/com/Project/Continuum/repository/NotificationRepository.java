@@ -3,9 +3,12 @@ package com.Project.Continuum.repository;
 import com.Project.Continuum.entity.Notification;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +18,14 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      * Find unread notifications for a user, ordered by createdAt DESC
      */
     @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isRead = false ORDER BY n.createdAt DESC")
-    List<Notification> findUnreadByUserId(@Param("userId") Long userId);
+    List<Notification> findUnreadByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Mark every unread notification of a user as read in one statement
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") Long userId);
 
     /**
      * Find recent notifications for a user (read + unread), ordered by createdAt
@@ -35,9 +45,51 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     Optional<Notification> findByIdAndUserId(Long id, Long userId);
 
+    /**
+     * Add one message to an unread coalesced chat notification. The row stays
+     * locked until commit, so concurrent merges never lose an increment.
+     *
+     * @return 1 if merged, 0 if the row is gone or already read
+     */
+    @Modifying
+    @Query("""
+            UPDATE Notification n SET n.messageCount = COALESCE(n.messageCount, 1) + 1
+            WHERE n.id = :id AND n.userId = :userId AND n.isRead = false
+            """)
+    int incrementMessageCount(@Param("id") Long id, @Param("userId") Long userId);
+
     void deleteAllByUserId(Long userId);
 
-    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.type = 'CHAT_MESSAGE' AND n.payload LIKE %:payloadPattern%")
-    List<Notification> findUnreadChatNotificationsBySender(@Param("userId") Long userId,
-            @Param("payloadPattern") String payloadPattern);
+    // ==================== RETENTION ====================
+
+    /**
+     * Oldest read notifications created before the cutoff, served by
+     * idx_notification_read_created
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND n.createdAt < :cutoff ORDER BY n.createdAt ASC")
+    List<Long> findReadIdsCreatedBefore(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT n.userId FROM Notification n WHERE n.isRead = false GROUP BY n.userId HAVING COUNT(n) > :cap")
+    List<Long> findUserIdsWithUnreadOver(@Param("cap") long cap);
+
+    @Query("SELECT n.id FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.id <> :excludeId ORDER BY n.createdAt ASC, n.id ASC")
+    List<Long> findOldestUnreadIds(@Param("userId") Long userId, @Param("excludeId") Long excludeId,
+            Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userId = :userId AND n.isRead = false AND n.type = 'SYSTEM' AND n.title = :title")
+    List<Notification> findUnreadSystemByTitle(@Param("userId") Long userId, @Param("title") String title);
+
+    /**
+     * Mark every unread chat notification from one sender as read in one
+     * statement, served by idx_notification_user_sender_read
+     *
+     * @return rows marked read
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.senderId = :senderId AND n.isRead = false AND n.type = 'CHAT_MESSAGE'")
+    int markChatReadBySender(@Param("userId") Long userId, @Param("senderId") Long senderId);
 }
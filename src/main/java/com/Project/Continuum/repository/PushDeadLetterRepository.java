@@ -0,0 +1,30 @@
+package com.Project.Continuum.repository;
+
+import com.Project.Continuum.entity.PushDeadLetter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PushDeadLetterRepository extends JpaRepository<PushDeadLetter, Long> {
+
+    // ==================== RETENTION ====================
+
+    /**
+     * Oldest dead letters recorded before the cutoff, served by
+     * idx_push_dead_letter_failed
+     */
+    @Query("SELECT d.id FROM PushDeadLetter d WHERE d.failedAt < :cutoff ORDER BY d.failedAt ASC")
+    List<Long> findIdsFailedBefore(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM PushDeadLetter d WHERE d.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -2,8 +2,14 @@ package com.Project.Continuum.repository;
 
 import com.Project.Continuum.entity.PushSubscription;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +37,12 @@ public interface PushSubscriptionRepository extends JpaRepository<PushSubscripti
     boolean existsByUserId(Long userId);
 
     void deleteByUserId(Long userId);
+
+    /**
+     * Bulk-stamp lastUsedAt for subscriptions that received a push
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PushSubscription s SET s.lastUsedAt = :usedAt WHERE s.id IN :ids")
+    int touchLastUsed(@Param("ids") Collection<Long> ids, @Param("usedAt") Instant usedAt);
 }
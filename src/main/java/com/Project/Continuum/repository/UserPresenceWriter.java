@@ -0,0 +1,45 @@
+package com.Project.Continuum.repository;
+
+import com.Project.Continuum.store.PresenceSnapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Batched write of users.presence_status / last_seen_at for the presence
+ * write-behind flush.
+ *
+ * Plain JDBC so the whole flush is one prepared UPDATE sent as a JDBC batch,
+ * touching only the two presence columns (an entity save would rewrite
+ * every column of the row).
+ */
+@Repository
+public class UserPresenceWriter {
+
+    // A null lastSeenAt keeps the stored value
+    private static final String UPDATE_PRESENCE = "UPDATE users SET presence_status = ?, "
+            + "last_seen_at = COALESCE(?, last_seen_at) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserPresenceWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void writeAll(List<PresenceSnapshot> snapshots, int batchSize) {
+        jdbcTemplate.batchUpdate(UPDATE_PRESENCE, snapshots, batchSize, (ps, snapshot) -> {
+            ps.setString(1, snapshot.status().name());
+            if (snapshot.lastSeenAt() != null) {
+                // Same UTC wall-clock mapping Hibernate uses (hibernate.jdbc.time_zone: UTC)
+                ps.setObject(2, LocalDateTime.ofInstant(snapshot.lastSeenAt(), ZoneOffset.UTC), Types.TIMESTAMP);
+            } else {
+                ps.setNull(2, Types.TIMESTAMP);
+            }
+            ps.setLong(3, snapshot.userId());
+        });
+    }
+}
@@ -3,11 +3,15 @@ package com.Project.Continuum.repository;
 import com.Project.Continuum.entity.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
 
     Optional<UserProfile> findByUser_Id(Long userId);
 
+    List<UserProfile> findByUser_IdIn(Collection<Long> userIds);
+
     void deleteByUser_Id(Long userId);
 }
@@ -2,9 +2,12 @@ package com.Project.Continuum.repository;
 
 import com.Project.Continuum.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.Project.Continuum.enums.AuthProvider;
@@ -19,12 +22,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByIdAndIsActiveTrue(Long id);
 
+    /**
+     * Persist a batch of OFFLINE transitions from the stale-presence sweep.
+     * last_seen_at is left as written by the presence write-behind.
+     */
+    @Modifying
+    @Transactional
     @Query("""
-            SELECT u FROM User u
-            WHERE u.presenceStatus != com.Project.Continuum.enums.PresenceStatus.OFFLINE
-            AND (u.lastSeenAt IS NULL OR u.lastSeenAt < :cutoff)
+            UPDATE User u SET u.presenceStatus = com.Project.Continuum.enums.PresenceStatus.OFFLINE
+            WHERE u.id IN :ids
             """)
-    List<User> findUsersToMarkOffline(@Param("cutoff") java.time.Instant cutoff);
+    int markOffline(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Startup reset: nobody is connected yet, so any non-OFFLINE row was left
+     * behind by the previous run.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE User u SET u.presenceStatus = com.Project.Continuum.enums.PresenceStatus.OFFLINE
+            WHERE u.presenceStatus <> com.Project.Continuum.enums.PresenceStatus.OFFLINE
+            """)
+    int markAllOffline();
+
+    /**
+     * (id, lastSeenAt) of the active users among ids - presence fallback for
+     * users not in PresenceStore.
+     */
+    @Query("SELECT u.id, u.lastSeenAt FROM User u WHERE u.id IN :ids AND u.isActive = true")
+    List<Object[]> findLastSeenOfActiveUsers(@Param("ids") Collection<Long> ids);
 
     long countByLastSeenAtAfter(java.time.Instant cutoff);
 
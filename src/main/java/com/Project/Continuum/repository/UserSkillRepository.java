@@ -3,7 +3,10 @@ package com.Project.Continuum.repository;
 import com.Project.Continuum.entity.UserSkill;
 import com.Project.Continuum.enums.SkillType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +30,24 @@ public interface UserSkillRepository extends JpaRepository<UserSkill, Long> {
     // Matching: who teaches / learns a skill
     List<UserSkill> findBySkill_IdAndSkillType(Long skillId, SkillType skillType);
 
+    // Matching: candidate details for a pre-filtered set of users
+    @Query("""
+            SELECT us FROM UserSkill us
+            JOIN FETCH us.user
+            JOIN FETCH us.skill
+            WHERE us.skill.id = :skillId
+            AND us.skillType = :skillType
+            AND us.user.id IN :userIds
+            """)
+    List<UserSkill> findWithDetailsBySkillAndUsers(
+            @Param("skillId") Long skillId,
+            @Param("skillType") SkillType skillType,
+            @Param("userIds") Collection<Long> userIds);
+
+    // Matching index warm-up: (userId, skillId, skillType) for every user skill
+    @Query("SELECT us.user.id, us.skill.id, us.skillType FROM UserSkill us")
+    List<Object[]> findAllSkillKeys();
+
     boolean existsByUser_IdAndSkill_IdAndSkillType(Long userId, Long skillId, SkillType skillType);
 
     long countByUser_IdAndSkillType(Long userId, SkillType skillType);
@@ -0,0 +1,110 @@
+package com.Project.Continuum.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * CallDeadlineScheduler - One timer per active call.
+ *
+ * 1. RINGING: armed when a call is initiated, fires 30 seconds later
+ * 2. ACCEPTED: replaces the ringing timer when the call is accepted,
+ * fires 5 minutes later
+ * 3. CANCEL: dropped when the call is rejected or ended
+ *
+ * Timers are (re)armed and cancelled after the surrounding transaction
+ * commits, so a rolled-back state change never leaves a stray timer.
+ * When a timer fires, CallTimeoutScheduler re-reads the call and only
+ * expires it if it is still in the state the timer was armed for.
+ */
+@Component
+public class CallDeadlineScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CallDeadlineScheduler.class);
+
+    static final Duration RINGING_TIMEOUT = Duration.ofSeconds(30);
+    static final Duration ACCEPTED_TIMEOUT = Duration.ofMinutes(5); // Max call duration without heartbeat
+
+    private final TaskScheduler taskScheduler;
+    private final CallTimeoutScheduler callTimeoutScheduler;
+
+    private final Map<Long, ScheduledFuture<?>> deadlines = new ConcurrentHashMap<>();
+
+    public CallDeadlineScheduler(
+            TaskScheduler taskScheduler,
+            @Lazy CallTimeoutScheduler callTimeoutScheduler) { // @Lazy: CallTimeoutScheduler -> ExchangeSessionService -> CallService -> here
+        this.taskScheduler = taskScheduler;
+        this.callTimeoutScheduler = callTimeoutScheduler;
+    }
+
+    public void scheduleRinging(Long callId, Instant initiatedAt) {
+        afterCommit(() -> arm(callId, initiatedAt.plus(RINGING_TIMEOUT),
+                () -> callTimeoutScheduler.expireRingingCall(callId)));
+    }
+
+    public void scheduleAccepted(Long callId, Instant acceptedAt) {
+        afterCommit(() -> arm(callId, acceptedAt.plus(ACCEPTED_TIMEOUT),
+                () -> callTimeoutScheduler.expireAcceptedCall(callId)));
+    }
+
+    public void cancel(Long callId) {
+        afterCommit(() -> {
+            ScheduledFuture<?> timer = deadlines.remove(callId);
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        });
+    }
+
+    public int getPendingCount() {
+        return deadlines.size();
+    }
+
+    // ==================== INTERNAL ====================
+
+    private void arm(Long callId, Instant deadline, Runnable onExpire) {
+        ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+        self[0] = taskScheduler.schedule(() -> {
+            // Only clear our own entry - a newer timer may already have replaced it
+            deadlines.remove(callId, self[0]);
+            try {
+                onExpire.run();
+            } catch (Exception e) {
+                log.error("Failed to expire call {}: {}", callId, e.getMessage());
+            }
+        }, deadline);
+
+        ScheduledFuture<?> previous = deadlines.put(callId, self[0]);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        // Deadline already in the past: the timer may have run before it was registered
+        if (self[0].isDone()) {
+            deadlines.remove(callId, self[0]);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+
+        action.run();
+    }
+}
@@ -14,14 +14,15 @@ import com.Project.Continuum.store.CallStateStore;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,18 +34,22 @@ import java.util.Set;
  * 2. RINGING TIMEOUT: Auto-expire calls not answered within 30 seconds
  * 3. ACCEPTED TIMEOUT: Auto-expire connected calls after 5 minutes without
  * activity
- * 4. STALE DETECTION: Clean up any orphaned calls
+ * 4. FORCE CLEAR: Backstop sweep for calls still active an hour after they
+ * were initiated
+ * 
+ * Timeouts are driven by per-call deadlines (see CallDeadlineScheduler). The
+ * startup cleanup ends whatever a previous instance left active; the force
+ * clear sweep catches any deadline that was lost or never fired. Both read
+ * only active calls through idx_call_status_initiated.
  */
 @Component
 public class CallTimeoutScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(CallTimeoutScheduler.class);
 
-    // Timeout configurations
-    private static final int RINGING_TIMEOUT_SECONDS = 30;
-    private static final int ACCEPTED_TIMEOUT_MINUTES = 5; // Max call duration without heartbeat
-    private static final int STALE_CALL_HOURS = 1; // Any call older than 1 hour is stale
     private static final long EXCHANGE_TIMEOUT_MS = 30000;
+    private static final int CLEANUP_BATCH_SIZE = 500;
+    private static final Duration STALE_CALL_AGE = Duration.ofHours(1);
 
     private final CallSessionRepository callSessionRepository;
     private final CallStateStore callStateStore;
@@ -83,18 +88,9 @@ public class CallTimeoutScheduler {
         log.info("🧹 Server starting - cleaning up stuck sessions...");
 
         // 1. Clean stuck CALL sessions
-        List<CallSession> activeCalls = callSessionRepository.findAll().stream()
-                .filter(c -> c.getStatus() == CallStatus.RINGING || c.getStatus() == CallStatus.ACCEPTED)
-                .toList();
-
-        int cleanedCalls = 0;
-        for (CallSession call : activeCalls) {
-            try {
-                endStaleCall(call, CallEndReason.STALE_TIMEOUT, "Server restart");
-                cleanedCalls++;
-            } catch (Exception e) {
-                log.error("Failed to clean up call {}: {}", call.getId(), e.getMessage());
-            }
+        int cleanedCalls = endActiveCallsStartedBefore(Instant.now(clock), CallEndReason.STALE_TIMEOUT);
+        if (cleanedCalls > 0) {
+            log.info("Ended {} calls left active by the previous run - Server restart", cleanedCalls);
         }
 
         // 2. Clean stuck EXCHANGE sessions (Fixes "Active Exchanges" dashboard stat)
@@ -119,25 +115,56 @@ public class CallTimeoutScheduler {
                 cleanedExchanges);
     }
 
-    // ==================== RINGING CALL TIMEOUT ====================
-
     /**
-     * Expires RINGING calls that haven't been answered within 30 seconds.
-     * Creates missed call notification for caller.
+     * Ends RINGING/ACCEPTED calls in batches of CLEANUP_BATCH_SIZE, one
+     * UPDATE per batch. Each batch is read again from the first page: ended
+     * calls drop out of the status filter, so the loop stops when nothing is
+     * left (or a batch fails).
      */
-    @Scheduled(fixedRate = 5000) // Every 5 seconds
-    @Transactional
-    public void expireRingingCalls() {
-        Instant cutoff = Instant.now(clock).minus(RINGING_TIMEOUT_SECONDS, ChronoUnit.SECONDS);
+    private int endActiveCallsStartedBefore(Instant cutoff, CallEndReason reason) {
+        List<CallStatus> active = List.of(CallStatus.RINGING, CallStatus.ACCEPTED);
+        int cleaned = 0;
+
+        while (true) {
+            List<Object[]> batch = callSessionRepository.findParticipantsByStatusInitiatedBefore(
+                    active, cutoff, PageRequest.of(0, CLEANUP_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
 
-        List<CallSession> timedOutCalls = callSessionRepository.findAll().stream()
-                .filter(c -> c.getStatus() == CallStatus.RINGING)
-                .filter(c -> c.getInitiatedAt().isBefore(cutoff))
-                .toList();
+            List<Long> ids = batch.stream().map(row -> (Long) row[0]).toList();
+            int ended;
+            try {
+                ended = callSessionRepository.endCalls(ids, active, Instant.now(clock), reason);
+            } catch (Exception e) {
+                log.error("Failed to end {} stuck calls: {}", ids.size(), e.getMessage());
+                break;
+            }
+
+            for (Object[] row : batch) {
+                broadcastCallEnd((Long) row[0], (Long) row[1], (Long) row[2], reason.name());
+            }
+            cleaned += ended;
 
-        for (CallSession call : timedOutCalls) {
-            expireRingingCall(call);
+            if (ended == 0 || batch.size() < CLEANUP_BATCH_SIZE) {
+                break;
+            }
         }
+        return cleaned;
+    }
+
+    // ==================== RINGING CALL TIMEOUT ====================
+
+    /**
+     * Fired by CallDeadlineScheduler 30 seconds after a call was initiated.
+     * Expires the call if it is still RINGING and creates a missed call
+     * notification for the caller.
+     */
+    @Transactional
+    public void expireRingingCall(Long callId) {
+        callSessionRepository.findById(callId)
+                .filter(call -> call.getStatus() == CallStatus.RINGING)
+                .ifPresent(this::expireRingingCall);
     }
 
     private void expireRingingCall(CallSession call) {
@@ -163,53 +190,37 @@ public class CallTimeoutScheduler {
     // ==================== ACCEPTED CALL TIMEOUT ====================
 
     /**
-     * Expires ACCEPTED calls that have been connected for too long.
+     * Fired by CallDeadlineScheduler 5 minutes after a call was accepted.
      * This catches calls where both parties have disconnected but
      * the end signal was never received (network issues, browser crashes, etc.)
      * 
-     * A properly functioning call will have ended before this timeout.
+     * A properly functioning call will have ended (and cancelled the
+     * deadline) before this fires.
      */
-    @Scheduled(fixedRate = 60000) // Every 60 seconds
     @Transactional
-    public void expireStaleAcceptedCalls() {
-        Instant cutoff = Instant.now(clock).minus(ACCEPTED_TIMEOUT_MINUTES, ChronoUnit.MINUTES);
-
-        List<CallSession> staleCalls = callSessionRepository.findAll().stream()
-                .filter(c -> c.getStatus() == CallStatus.ACCEPTED)
-                .filter(c -> {
-                    // Check if accepted too long ago
-                    Instant acceptedAt = c.getAcceptedAt();
-                    return acceptedAt != null && acceptedAt.isBefore(cutoff);
-                })
-                .toList();
-
-        for (CallSession call : staleCalls) {
-            log.info("⏰ Expiring stale ACCEPTED call: callId={}, acceptedAt={}",
-                    call.getId(), call.getAcceptedAt());
-            endStaleCall(call, CallEndReason.STALE_TIMEOUT, "Connection timeout");
-        }
+    public void expireAcceptedCall(Long callId) {
+        callSessionRepository.findById(callId)
+                .filter(call -> call.getStatus() == CallStatus.ACCEPTED)
+                .ifPresent(call -> {
+                    log.info("⏰ Expiring stale ACCEPTED call: callId={}, acceptedAt={}",
+                            call.getId(), call.getAcceptedAt());
+                    endStaleCall(call, CallEndReason.STALE_TIMEOUT, "Connection timeout");
+                });
     }
 
     // ==================== FORCE CLEAR ANCIENT CALLS ====================
 
     /**
      * Force-clear any calls that are impossibly old (over 1 hour).
-     * This is a safety net for any edge cases that slip through.
+     * Safety net for deadlines that were lost or never fired; normally finds
+     * nothing and costs one index range read.
      */
     @Scheduled(fixedRate = 300000) // Every 5 minutes
-    @Transactional
     public void forceCleanAncientCalls() {
-        Instant cutoff = Instant.now(clock).minus(STALE_CALL_HOURS, ChronoUnit.HOURS);
-
-        List<CallSession> ancientCalls = callSessionRepository.findAll().stream()
-                .filter(c -> c.getStatus() == CallStatus.RINGING || c.getStatus() == CallStatus.ACCEPTED)
-                .filter(c -> c.getInitiatedAt().isBefore(cutoff))
-                .toList();
-
-        for (CallSession call : ancientCalls) {
-            log.warn("🚨 Force-clearing ancient call: callId={}, initiatedAt={}",
-                    call.getId(), call.getInitiatedAt());
-            endStaleCall(call, CallEndReason.FORCE_CLEARED, "Force cleared - ancient call");
+        int cleared = endActiveCallsStartedBefore(Instant.now(clock).minus(STALE_CALL_AGE),
+                CallEndReason.FORCE_CLEARED);
+        if (cleared > 0) {
+            log.warn("🚨 Force-cleared {} ancient calls (initiated over {} ago)", cleared, STALE_CALL_AGE);
         }
     }
 
@@ -226,18 +237,22 @@ public class CallTimeoutScheduler {
     }
 
     private void broadcastCallEnd(CallSession call, String endReason) {
+        broadcastCallEnd(call.getId(), call.getCaller().getId(), call.getReceiver().getId(), endReason);
+    }
+
+    private void broadcastCallEnd(Long callId, Long callerId, Long receiverId, String endReason) {
         Map<String, Object> payload = Map.of(
                 "event", "CALL_END",
-                "callId", call.getId(),
+                "callId", callId,
                 "endReason", endReason);
 
         try {
             messagingTemplate.convertAndSendToUser(
-                    String.valueOf(call.getCaller().getId()),
+                    String.valueOf(callerId),
                     "/queue/calls",
                     payload);
             messagingTemplate.convertAndSendToUser(
-                    String.valueOf(call.getReceiver().getId()),
+                    String.valueOf(receiverId),
                     "/queue/calls",
                     payload);
         } catch (Exception e) {
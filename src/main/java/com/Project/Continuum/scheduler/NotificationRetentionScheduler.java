@@ -0,0 +1,132 @@
+package com.Project.Continuum.scheduler;
+
+import com.Project.Continuum.service.NotificationRetentionService;
+import com.Project.Continuum.store.UnreadCountStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * NotificationRetentionScheduler - Keeps the notifications table bounded.
+ * 
+ * 1. READ RETENTION: delete read notifications older than max-age, in
+ * batches, up to max-batches per run.
+ * 2. UNREAD CAP: users with more than per-user-cap unread notifications get
+ * their oldest ones folded into one "Earlier notifications" summary row.
+ * 3. PUSH DEAD LETTERS: delete dead-lettered pushes older than
+ * push-dead-letter-max-age, in batches.
+ * 
+ * Each batch is its own transaction. Rows removed are logged per run.
+ */
+@Component
+public class NotificationRetentionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionScheduler.class);
+
+    private final NotificationRetentionService retentionService;
+    private final UnreadCountStore unreadCountStore;
+    private final Clock clock;
+
+    @Value("${notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.retention.read-max-age:30d}")
+    private Duration readMaxAge;
+
+    @Value("${notifications.retention.per-user-unread-cap:500}")
+    private int perUserUnreadCap;
+
+    @Value("${notifications.retention.push-dead-letter-max-age:14d}")
+    private Duration deadLetterMaxAge;
+
+    @Value("${notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${notifications.retention.max-batches:100}")
+    private int maxBatches;
+
+    public NotificationRetentionScheduler(
+            NotificationRetentionService retentionService,
+            UnreadCountStore unreadCountStore,
+            Clock clock) {
+        this.retentionService = retentionService;
+        this.unreadCountStore = unreadCountStore;
+        this.clock = clock;
+    }
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public RetentionReport run() {
+        long startedAt = clock.millis();
+        Instant cutoff = Instant.now(clock).minus(readMaxAge);
+
+        // 1️⃣ Read retention
+        long readDeleted = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = retentionService.deleteReadBatch(cutoff, batchSize);
+            readDeleted += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+
+        // 2️⃣ Per-user unread cap (its own max-batches budget)
+        long unreadCompacted = 0;
+        int usersCompacted = 0;
+        int batchesLeft = maxBatches;
+        List<Long> userIds = retentionService.findUsersOverUnreadCap(perUserUnreadCap);
+        for (Long userId : userIds) {
+            long removedForUser = 0;
+            while (batchesLeft-- > 0) {
+                int removed = retentionService.compactUnreadBatch(userId, perUserUnreadCap, batchSize);
+                removedForUser += removed;
+                if (removed < batchSize) {
+                    break;
+                }
+            }
+            if (removedForUser > 0) {
+                usersCompacted++;
+                unreadCompacted += removedForUser;
+                unreadCountStore.invalidate(userId);
+            }
+            if (batchesLeft <= 0) {
+                break;
+            }
+        }
+
+        // 3️⃣ Push dead letters
+        Instant deadLetterCutoff = Instant.now(clock).minus(deadLetterMaxAge);
+        long deadLettersDeleted = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = retentionService.deleteDeadLetterBatch(deadLetterCutoff, batchSize);
+            deadLettersDeleted += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+
+        RetentionReport report = new RetentionReport(readDeleted, unreadCompacted, usersCompacted,
+                deadLettersDeleted, clock.millis() - startedAt);
+        log.info("🧹 Notification retention: deleted {} read (older than {}), compacted {} unread for {} user(s), "
+                + "deleted {} push dead letters in {} ms",
+                report.readDeleted(), readMaxAge, report.unreadCompacted(), report.usersCompacted(),
+                report.deadLettersDeleted(), report.durationMs());
+        return report;
+    }
+
+    public record RetentionReport(long readDeleted, long unreadCompacted, int usersCompacted,
+            long deadLettersDeleted, long durationMs) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.Project.Continuum.scheduler;
+
+import com.Project.Continuum.repository.UserPresenceWriter;
+import com.Project.Continuum.store.PresenceSnapshot;
+import com.Project.Continuum.store.PresenceStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * PresenceFlushScheduler - Write-behind for presence.
+ * 
+ * PresenceStore is the source of truth; connects, disconnects, status
+ * changes and heartbeats only mark the user dirty there. Every flush
+ * interval the dirty users are written to users.presence_status /
+ * last_seen_at in one batched UPDATE (latest value wins, so a user that
+ * heartbeats ten times between flushes costs one row write).
+ * 
+ * A failed flush puts the users back in the dirty set. A final flush runs
+ * on shutdown.
+ */
+@Component
+public class PresenceFlushScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceFlushScheduler.class);
+
+    private final PresenceStore presenceStore;
+    private final UserPresenceWriter userPresenceWriter;
+
+    @Value("${presence.write-behind.batch-size:500}")
+    private int batchSize;
+
+    public PresenceFlushScheduler(PresenceStore presenceStore, UserPresenceWriter userPresenceWriter) {
+        this.presenceStore = presenceStore;
+        this.userPresenceWriter = userPresenceWriter;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.write-behind.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        log.info("Presence write-behind flushed {} user(s) on shutdown", flushed);
+    }
+
+    /**
+     * Persist every dirty user. Returns the number of users written.
+     */
+    public synchronized int flush() {
+        List<PresenceSnapshot> snapshots = presenceStore.drainDirty();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            userPresenceWriter.writeAll(snapshots, batchSize);
+            return snapshots.size();
+        } catch (Exception e) {
+            presenceStore.markDirty(snapshots.stream().map(PresenceSnapshot::userId).toList());
+            log.error("Presence flush failed for {} user(s), will retry: {}", snapshots.size(), e.getMessage());
+            return 0;
+        }
+    }
+}
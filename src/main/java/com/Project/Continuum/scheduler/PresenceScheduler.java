@@ -1,13 +1,19 @@
 package com.Project.Continuum.scheduler;
 
-import com.Project.Continuum.enums.PresenceStatus;
 import com.Project.Continuum.repository.UserRepository;
+import com.Project.Continuum.store.PresenceFanout;
+import com.Project.Continuum.store.PresenceSnapshot;
 import com.Project.Continuum.store.PresenceStore;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
 /**
  * PresenceScheduler - Fast detection of stale/inactive users.
  * 
@@ -15,6 +21,10 @@ import org.springframework.stereotype.Component;
  * - They have no active WebSocket connections (connectionCount = 0)
  * - Their lastSeenAt is older than 1 minute
  * 
+ * Candidates come from PresenceStore's idle index, so a sweep only touches
+ * users that actually expired. The OFFLINE transitions are persisted with
+ * one UPDATE per batch.
+ * 
  * This is a safety net - WebSocket disconnect should handle most cases.
  */
 @Component
@@ -22,42 +32,65 @@ public class PresenceScheduler {
 
     private static final Logger log = LoggerFactory.getLogger(PresenceScheduler.class);
     private static final int TIMEOUT_SECONDS = 60; // 1 minute timeout
+    private static final int BATCH_SIZE = 1000;
 
     private final UserRepository userRepository;
     private final PresenceStore presenceStore;
-    private final com.Project.Continuum.service.PresenceService presenceService;
-    private final java.time.Clock clock;
+    private final PresenceFanout presenceFanout;
+    private final Clock clock;
 
     public PresenceScheduler(
             UserRepository userRepository,
             PresenceStore presenceStore,
-            com.Project.Continuum.service.PresenceService presenceService,
-            java.time.Clock clock) {
+            PresenceFanout presenceFanout,
+            Clock clock) {
         this.userRepository = userRepository;
         this.presenceStore = presenceStore;
-        this.presenceService = presenceService;
+        this.presenceFanout = presenceFanout;
         this.clock = clock;
     }
 
+    /**
+     * The store starts empty, so rows still marked online are leftovers from
+     * the previous run.
+     */
+    @PostConstruct
+    public void resetPresenceOnStartup() {
+        int reset = userRepository.markAllOffline();
+        if (reset > 0) {
+            log.info("🧹 Startup: marked {} users OFFLINE left over from previous run", reset);
+        }
+    }
+
     /**
      * Fast check for stale users - runs every 30 seconds.
      */
     @Scheduled(fixedRate = 30000) // Every 30 seconds
     public void markInactiveUsersOffline() {
-        java.time.Instant cutoff = java.time.Instant.now(clock).minusSeconds(TIMEOUT_SECONDS);
-
-        userRepository.findUsersToMarkOffline(cutoff)
-                .forEach(user -> {
-                    // Double-check: only mark offline if no active connections
-                    int connections = presenceStore.getConnectionCount(user.getId());
-                    if (connections <= 0) {
-                        // Check if actually stale in the store
-                        if (presenceStore.isStale(user.getId(), cutoff)) {
-                            log.info("⏰ Marking user {} OFFLINE (stale for {} seconds, connections={})",
-                                    user.getId(), TIMEOUT_SECONDS, connections);
-                            presenceService.updatePresence(user.getId(), PresenceStatus.OFFLINE);
-                        }
-                    }
-                });
+        Instant cutoff = Instant.now(clock).minusSeconds(TIMEOUT_SECONDS);
+
+        List<PresenceSnapshot> expired = presenceStore.expireIdleBefore(cutoff);
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        List<Long> userIds = expired.stream().map(PresenceSnapshot::userId).toList();
+        for (int from = 0; from < userIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = userIds.subList(from, Math.min(from + BATCH_SIZE, userIds.size()));
+            try {
+                userRepository.markOffline(batch);
+            } catch (Exception e) {
+                // Leave it to the write-behind flush
+                presenceStore.markDirty(batch);
+                log.error("Failed to persist OFFLINE for {} stale users: {}", batch.size(), e.getMessage());
+            }
+        }
+
+        for (PresenceSnapshot snapshot : expired) {
+            presenceFanout.publish(snapshot.userId(), snapshot.status(), snapshot.lastSeenAt());
+        }
+
+        log.info("⏰ Marked {} users OFFLINE (stale for {} seconds, no connections)", expired.size(),
+                TIMEOUT_SECONDS);
     }
 }
@@ -0,0 +1,14 @@
+package com.Project.Continuum.security;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of the user columns needed to authenticate a request:
+ * active flag, server-side session token and role.
+ */
+public record AuthPrincipal(Long userId, boolean active, String sessionToken, String role, Instant loadedAt) {
+
+    public boolean matchesSession(String jwtSessionToken) {
+        return sessionToken != null && sessionToken.equals(jwtSessionToken);
+    }
+}
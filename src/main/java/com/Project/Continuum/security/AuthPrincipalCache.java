@@ -0,0 +1,109 @@
+package com.Project.Continuum.security;
+
+import com.Project.Continuum.entity.User;
+import com.Project.Continuum.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL'd cache of {@link AuthPrincipal} keyed by userId.
+ * 
+ * Serves the session / active / role check done by JwtAuthenticationFilter
+ * and the WebSocket interceptors without hitting the users table on every
+ * request.
+ * 
+ * Consistency:
+ * - Logout, deactivation, login and role changes call invalidate()
+ * - invalidate() evicts immediately and again after commit, so a concurrent
+ * reader cannot re-cache the pre-commit row
+ * - A session token mismatch always re-checks the DB before rejecting
+ */
+@Component
+public class AuthPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Clock clock;
+    private final Duration ttl;
+    private final SegmentedLruCache<Long, AuthPrincipal> cache;
+
+    public AuthPrincipalCache(
+            UserRepository userRepository,
+            Clock clock,
+            @Value("${auth.cache.ttl:60s}") Duration ttl,
+            @Value("${auth.cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.clock = clock;
+        this.ttl = ttl;
+        // Segmented LRU: eviction once maxSize is reached, no global lock on reads
+        this.cache = new SegmentedLruCache<>(maxSize);
+    }
+
+    /**
+     * Cached principal, loaded from the DB when missing or expired.
+     * Empty if the user does not exist.
+     */
+    public Optional<AuthPrincipal> get(Long userId) {
+        AuthPrincipal cached = cache.get(userId);
+
+        if (cached != null && cached.loadedAt().plus(ttl).isAfter(Instant.now(clock))) {
+            return Optional.of(cached);
+        }
+        return load(userId);
+    }
+
+    /**
+     * Resolve the principal for a token's session: served from cache when the
+     * session token matches, otherwise re-read from the DB (e.g. fresh login
+     * on another device rotated the token).
+     */
+    public Optional<AuthPrincipal> getForSession(Long userId, String jwtSessionToken) {
+        Optional<AuthPrincipal> principal = get(userId);
+        if (jwtSessionToken != null && principal.isPresent() && !principal.get().matchesSession(jwtSessionToken)) {
+            return load(userId);
+        }
+        return principal;
+    }
+
+    public void invalidate(Long userId) {
+        evict(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    private Optional<AuthPrincipal> load(Long userId) {
+        Optional<User> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            evict(userId);
+            return Optional.empty();
+        }
+
+        User user = userOpt.get();
+        AuthPrincipal principal = new AuthPrincipal(
+                user.getId(),
+                user.isActive(),
+                user.getSessionToken(),
+                user.getRole() != null ? user.getRole().name() : "USER",
+                Instant.now(clock));
+
+        cache.put(userId, principal);
+        return Optional.of(principal);
+    }
+
+    private void evict(Long userId) {
+        cache.remove(userId);
+    }
+}
@@ -1,7 +1,5 @@
 package com.Project.Continuum.security;
 
-import com.Project.Continuum.entity.User;
-import com.Project.Continuum.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,11 +19,11 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final AuthPrincipalCache authPrincipalCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, AuthPrincipalCache authPrincipalCache) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.authPrincipalCache = authPrincipalCache;
     }
 
     @Override
@@ -59,11 +57,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            Long userId = jwtUtil.extractUserId(token);
-            String jwtSessionToken = jwtUtil.extractSessionToken(token);
-            Optional<User> userOpt = userRepository.findById(userId);
+            JwtClaims claims = jwtUtil.parseAll(token);
+            Long userId = claims.userId();
+            String jwtSessionToken = claims.sessionToken();
+            Optional<AuthPrincipal> principalOpt = authPrincipalCache.getForSession(userId, jwtSessionToken);
 
-            if (userOpt.isEmpty() || !userOpt.get().isActive()) {
+            if (principalOpt.isEmpty() || !principalOpt.get().active()) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write(
@@ -80,9 +79,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            User user = userOpt.get();
-            String dbSessionToken = user.getSessionToken();
-            if (dbSessionToken == null || !dbSessionToken.equals(jwtSessionToken)) {
+            AuthPrincipal principal = principalOpt.get();
+            if (!principal.matchesSession(jwtSessionToken)) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.setContentType("application/json");
                 response.getWriter().write(
@@ -91,7 +89,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             // Use DB role so role updates take effect immediately.
-            String role = user.getRole() != null ? user.getRole().name() : "USER";
+            String role = principal.role();
 
             var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
 
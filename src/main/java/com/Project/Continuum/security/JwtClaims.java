@@ -0,0 +1,10 @@
+package com.Project.Continuum.security;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims Continuum puts in its JWTs, produced by a
+ * single signature verification in {@link JwtUtil#parseAll(String)}.
+ */
+public record JwtClaims(Long userId, String sessionToken, String role, Instant expiresAt) {
+}
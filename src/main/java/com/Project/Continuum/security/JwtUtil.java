@@ -5,8 +5,13 @@ import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
@@ -14,13 +19,23 @@ public class JwtUtil {
 
     private final Key key;
     private final Duration expiration;
+    private final JwtParser parser;
+
+    // SHA-256(token) -> verified claims, LRU-bounded; entries die with the token
+    private final SegmentedLruCache<String, JwtClaims> claimsCache;
 
     public JwtUtil(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") Duration expiration) {
+            @Value("${jwt.expiration}") Duration expiration,
+            @Value("${jwt.claims-cache.max-size:10000}") int claimsCacheSize) {
 
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expiration = expiration;
+        // Parsers are immutable and thread-safe; build once
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.claimsCache = new SegmentedLruCache<>(claimsCacheSize);
     }
 
     // Original method for backward compatibility (no session token, default USER
@@ -49,27 +64,62 @@ public class JwtUtil {
         return builder.signWith(key).compact();
     }
 
-    public Long extractUserId(String token) {
+    /**
+     * Verify the token once and return every claim we use.
+     * Verified tokens are cached by hash until they expire.
+     */
+    public JwtClaims parseAll(String token) {
+        String cacheKey = hash(token);
+
+        JwtClaims cached = claimsCache.get(cacheKey);
+        if (cached != null) {
+            if (Instant.now().isBefore(cached.expiresAt())) {
+                return cached;
+            }
+            claimsCache.remove(cacheKey);
+        }
+
+        // Throws on bad signature / expiry, so only valid tokens get cached
         Claims claims = parseClaims(token);
-        return Long.parseLong(claims.getSubject());
+        String role = claims.get("role", String.class);
+        Date expiration = claims.getExpiration();
+
+        JwtClaims parsed = new JwtClaims(
+                Long.parseLong(claims.getSubject()),
+                claims.get("session_token", String.class),
+                role != null ? role : "USER",
+                expiration != null ? expiration.toInstant() : Instant.MAX);
+
+        claimsCache.put(cacheKey, parsed);
+        return parsed;
+    }
+
+    public Long extractUserId(String token) {
+        return parseAll(token).userId();
     }
 
     public String extractSessionToken(String token) {
-        Claims claims = parseClaims(token);
-        return claims.get("session_token", String.class);
+        return parseAll(token).sessionToken();
     }
 
     public String extractRole(String token) {
-        Claims claims = parseClaims(token);
-        String role = claims.get("role", String.class);
-        return role != null ? role : "USER";
+        return parseAll(token).role();
     }
 
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every JVM
+            throw new IllegalStateException(e);
+        }
+    }
 }
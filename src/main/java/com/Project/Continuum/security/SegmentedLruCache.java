@@ -0,0 +1,79 @@
+package com.Project.Continuum.security;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU map split into independently locked segments.
+ *
+ * An access-ordered LinkedHashMap reorders itself on every get(), so it needs
+ * a lock even for reads. Hashing keys over several segments turns that one
+ * global lock on the request path into per-segment locks. Eviction is LRU per
+ * segment, so the overall bound is approximate (maxSize rounded up to a
+ * multiple of the segment count).
+ */
+final class SegmentedLruCache<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    SegmentedLruCache(int maxSize) {
+        this(maxSize, DEFAULT_SEGMENTS);
+    }
+
+    SegmentedLruCache(int maxSize, int segmentCount) {
+        int perSegment = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] array = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        this.segments = array;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16); // spread high bits, as HashMap does
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(64, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.Project.Continuum.repository.ChatMessageRepository;
 import com.Project.Continuum.repository.FriendRepository;
 import com.Project.Continuum.repository.UserSkillRepository;
 import com.Project.Continuum.repository.ExchangeSessionRepository;
+import com.Project.Continuum.security.AuthPrincipalCache;
 import com.Project.Continuum.enums.FriendStatus;
 import com.Project.Continuum.enums.SkillType;
 import com.Project.Continuum.enums.ExchangeStatus;
@@ -35,6 +36,7 @@ public class AdminService {
         private final FriendRepository friendRepository;
         private final UserSkillRepository userSkillRepository;
         private final ExchangeSessionRepository exchangeSessionRepository;
+        private final AuthPrincipalCache authPrincipalCache;
 
         public AdminService(
                         UserRepository userRepository,
@@ -42,13 +44,15 @@ public class AdminService {
                         ChatMessageRepository chatMessageRepository,
                         FriendRepository friendRepository,
                         UserSkillRepository userSkillRepository,
-                        ExchangeSessionRepository exchangeSessionRepository) {
+                        ExchangeSessionRepository exchangeSessionRepository,
+                        AuthPrincipalCache authPrincipalCache) {
                 this.userRepository = userRepository;
                 this.skillExchangeRequestRepository = skillExchangeRequestRepository;
                 this.chatMessageRepository = chatMessageRepository;
                 this.friendRepository = friendRepository;
                 this.userSkillRepository = userSkillRepository;
                 this.exchangeSessionRepository = exchangeSessionRepository;
+                this.authPrincipalCache = authPrincipalCache;
         }
 
         public DashboardStatsResponse getDashboardStats() {
@@ -83,6 +87,7 @@ public class AdminService {
                 user.setPresenceStatus(PresenceStatus.OFFLINE);
                 user.setLastSeenAt(Instant.now());
                 userRepository.save(user);
+                authPrincipalCache.invalidate(userId);
         }
 
         public void reactivateUser(Long userId) {
@@ -93,6 +98,7 @@ public class AdminService {
                 // Clear suspension fields for Phase 2 audit compatibility
                 user.setPresenceStatus(PresenceStatus.OFFLINE);
                 userRepository.save(user);
+                authPrincipalCache.invalidate(userId);
         }
 
         public UserActivityResponse getUserActivity(Long userId) {
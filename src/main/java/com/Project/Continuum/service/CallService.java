@@ -7,7 +7,6 @@ import com.Project.Continuum.enums.CallEndReason;
 import com.Project.Continuum.enums.CallStatus;
 import com.Project.Continuum.enums.CallType;
 import com.Project.Continuum.enums.ExchangeStatus;
-import com.Project.Continuum.enums.FriendStatus;
 import com.Project.Continuum.enums.NotificationType;
 import com.Project.Continuum.enums.PresenceStatus;
 import com.Project.Continuum.exception.AccessDeniedException;
@@ -15,8 +14,9 @@ import com.Project.Continuum.exception.BadRequestException;
 import com.Project.Continuum.exception.ResourceNotFoundException;
 import com.Project.Continuum.repository.CallSessionRepository;
 import com.Project.Continuum.repository.ExchangeSessionRepository;
-import com.Project.Continuum.repository.FriendRepository;
 import com.Project.Continuum.repository.UserRepository;
+import com.Project.Continuum.scheduler.CallDeadlineScheduler;
+import com.Project.Continuum.store.FriendGraph;
 import com.Project.Continuum.store.PresenceStore;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Service;
@@ -47,39 +47,42 @@ public class CallService {
     private final CallSessionRepository callSessionRepository; // Restored
     private final ExchangeSessionRepository exchangeSessionRepository;
     private final UserRepository userRepository;
-    private final FriendRepository friendRepository;
+    private final FriendGraph friendGraph;
     private final PresenceStore presenceStore;
     private final PresenceService presenceService;
     private final SimpMessageSendingOperations messagingTemplate;
     private final NotificationService notificationService;
     private final Clock clock;
     private final TaskScheduler taskScheduler;
+    private final CallDeadlineScheduler callDeadlineScheduler;
     private final ExchangeSessionService exchangeSessionService; // Added dependency
 
     public CallService(
             CallSessionRepository callSessionRepository,
             ExchangeSessionRepository exchangeSessionRepository,
             UserRepository userRepository,
-            FriendRepository friendRepository,
+            FriendGraph friendGraph,
             PresenceStore presenceStore,
             PresenceService presenceService,
             SimpMessageSendingOperations messagingTemplate,
             NotificationService notificationService,
             Clock clock,
             TaskScheduler taskScheduler,
+            CallDeadlineScheduler callDeadlineScheduler,
             @org.springframework.context.annotation.Lazy ExchangeSessionService exchangeSessionService) { // @Lazy to
                                                                                                           // break
                                                                                                           // circle
         this.callSessionRepository = callSessionRepository;
         this.exchangeSessionRepository = exchangeSessionRepository;
         this.userRepository = userRepository;
-        this.friendRepository = friendRepository;
+        this.friendGraph = friendGraph;
         this.presenceStore = presenceStore;
         this.presenceService = presenceService;
         this.messagingTemplate = messagingTemplate;
         this.notificationService = notificationService;
         this.clock = clock;
         this.taskScheduler = taskScheduler;
+        this.callDeadlineScheduler = callDeadlineScheduler;
         this.exchangeSessionService = exchangeSessionService;
     }
 
@@ -128,6 +131,7 @@ public class CallService {
         call.setExchangeSession(null); // FRIEND calls have no exchange
         call.setInitiatedAt(Instant.now(clock));
         callSessionRepository.save(call);
+        callDeadlineScheduler.scheduleRinging(call.getId(), call.getInitiatedAt());
 
         // Broadcast and notify
         broadcastCallInitiate(call, CallType.FRIEND);
@@ -189,6 +193,7 @@ public class CallService {
         call.setExchangeSession(exchange);
         call.setInitiatedAt(Instant.now(clock));
         callSessionRepository.save(call);
+        callDeadlineScheduler.scheduleRinging(call.getId(), call.getInitiatedAt());
 
         // Broadcast and notify
         broadcastCallInitiate(call, CallType.EXCHANGE);
@@ -230,6 +235,7 @@ public class CallService {
         call.setStatus(CallStatus.ACCEPTED);
         call.setAcceptedAt(Instant.now(clock));
         callSessionRepository.save(call);
+        callDeadlineScheduler.scheduleAccepted(callId, call.getAcceptedAt());
 
         // Transition both users to IN_SESSION
         presenceService.updatePresence(call.getCaller().getId(), PresenceStatus.IN_SESSION);
@@ -274,6 +280,7 @@ public class CallService {
         call.setEndedAt(Instant.now(clock));
         call.setEndReason(CallEndReason.REJECTED);
         callSessionRepository.save(call);
+        callDeadlineScheduler.cancel(callId);
 
         // Broadcast CALL_REJECT to both parties
         Map<String, Object> payload = Map.of(
@@ -295,7 +302,8 @@ public class CallService {
                 NotificationType.CALL_MISSED,
                 "Missed call",
                 call.getReceiver().getName() + " declined your call",
-                "{\"callerId\":" + call.getCaller().getId() + "}");
+                "{\"callerId\":" + call.getCaller().getId() + ",\"receiverId\":" + call.getReceiver().getId()
+                        + ",\"callId\":" + call.getId() + "}");
 
         return call;
     }
@@ -352,6 +360,7 @@ public class CallService {
         call.setEndedAt(Instant.now(clock));
         call.setEndReason(endReason);
         callSessionRepository.save(call);
+        callDeadlineScheduler.cancel(call.getId());
 
         // Transition both users back to ONLINE (only if they were IN_SESSION)
         if (presenceStore.getStatus(call.getCaller().getId()) == PresenceStatus.IN_SESSION) {
@@ -454,9 +463,7 @@ public class CallService {
     }
 
     private boolean areFriends(Long userId1, Long userId2) {
-        Long u1 = Math.min(userId1, userId2);
-        Long u2 = Math.max(userId1, userId2);
-        return friendRepository.existsByUser1_IdAndUser2_IdAndStatus(u1, u2, FriendStatus.ACCEPTED);
+        return friendGraph.areFriends(userId1, userId2);
     }
 
     // ==================== DISCONNECT HANDLING ====================
@@ -1,46 +1,57 @@
 package com.Project.Continuum.service;
 
+import com.Project.Continuum.dto.chat.ChatHistoryPageResponse;
 import com.Project.Continuum.dto.chat.ChatMessageRequest;
 import com.Project.Continuum.dto.chat.ChatMessageResponse;
 import com.Project.Continuum.entity.ChatMessage;
 import com.Project.Continuum.entity.User;
-import com.Project.Continuum.enums.NotificationType;
 import com.Project.Continuum.exception.AccessDeniedException;
+import com.Project.Continuum.exception.BadRequestException;
 import com.Project.Continuum.exception.ResourceNotFoundException;
 import com.Project.Continuum.repository.ChatMessageRepository;
-import com.Project.Continuum.repository.FriendRepository;
 import com.Project.Continuum.repository.UserRepository;
+import com.Project.Continuum.store.FriendGraph;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ChatService {
 
         private final ChatMessageRepository chatMessageRepository;
         private final UserRepository userRepository;
-        private final FriendRepository friendRepository;
+        private final FriendGraph friendGraph;
         private final SimpMessageSendingOperations messagingTemplate;
         private final NotificationService notificationService;
         private final Clock clock;
 
         private final com.Project.Continuum.store.PresenceStore presenceStore;
 
+        private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+        private static final int MAX_HISTORY_PAGE_SIZE = 100;
+        private static final int MAX_RECEIPT_IDS_PER_FRAME = 500;
+
         @org.springframework.beans.factory.annotation.Autowired
         public ChatService(ChatMessageRepository chatMessageRepository,
                         UserRepository userRepository,
-                        FriendRepository friendRepository,
+                        FriendGraph friendGraph,
                         SimpMessageSendingOperations messagingTemplate,
                         NotificationService notificationService,
                         Clock clock,
                         com.Project.Continuum.store.PresenceStore presenceStore) {
                 this.chatMessageRepository = chatMessageRepository;
                 this.userRepository = userRepository;
-                this.friendRepository = friendRepository;
+                this.friendGraph = friendGraph;
                 this.messagingTemplate = messagingTemplate;
                 this.notificationService = notificationService;
                 this.clock = clock;
@@ -88,13 +99,11 @@ public class ChatService {
                 // Broadcast to both users
                 broadcastToBoth(sender.getId(), recipient.getId(), response);
 
-                // Create notification for recipient
-                String senderName = sender.getName();
-
-                notificationService.createNotification(
+                // Create (or merge into) the recipient's notification for this thread
+                notificationService.createChatNotification(
                                 recipient.getId(),
-                                NotificationType.CHAT_MESSAGE,
-                                "New message from " + senderName,
+                                sender.getId(),
+                                sender.getName(),
                                 request.getContent().length() > 50
                                                 ? request.getContent().substring(0, 50) + "..."
                                                 : request.getContent(),
@@ -106,85 +115,118 @@ public class ChatService {
         }
 
         // ==================== MARK SEEN ====================
+        /**
+         * Marks the given messages as seen by their recipient with a single UPDATE.
+         * Messages not addressed to {@code userId} or already seen are ignored.
+         * The rows are locked before the UPDATE, so concurrent callers never
+         * report (and broadcast) the same transition twice.
+         *
+         * @return IDs of the messages that transitioned to seen
+         */
         @Transactional
-        public void markMessagesAsSeen(Long userId, List<Long> messageIds) {
+        public List<Long> markMessagesAsSeen(Long userId, List<Long> messageIds) {
                 if (messageIds == null || messageIds.isEmpty())
-                        return;
+                        return Collections.emptyList();
 
-                List<ChatMessage> messages = chatMessageRepository.findAllById(messageIds);
+                // Security + idempotency are part of the query: recipient = userId, seenAt IS NULL
+                Map<Long, List<Long>> idsBySender = groupIdsBySender(
+                                chatMessageRepository.lockUnseenIdsAndSenders(userId, messageIds));
+                if (idsBySender.isEmpty()) {
+                        return Collections.emptyList();
+                }
+
+                List<Long> seenIds = flatten(idsBySender);
                 Instant now = Instant.now(clock);
-                boolean anyUpdated = false;
+                int updated = chatMessageRepository.markSeen(seenIds, now);
+                requireAllUpdated("seen", seenIds, updated);
 
-                for (ChatMessage msg : messages) {
-                        // Security check: confirm current user is the recipient
-                        if (!msg.getRecipient().getId().equals(userId)) {
-                                continue;
-                        }
+                idsBySender.forEach((senderId, ids) -> {
+                        // One coalesced SEEN receipt per sender
+                        broadcastReceipts("MESSAGES_SEEN", "seenAt", senderId, userId, ids, now);
 
-                        // Idempotency: only update if not already seen
-                        if (msg.getSeenAt() == null) {
-                                msg.setSeenAt(now);
-                                // Consistency: if deliveredAt is missing, set it too
-                                if (msg.getDeliveredAt() == null) {
-                                        msg.setDeliveredAt(now);
-                                }
-                                anyUpdated = true;
-
-                                // Broadcast SEEN event individually
-                                java.util.Map<String, Object> payload = java.util.Map.of(
-                                                "type", "MESSAGE_SEEN",
-                                                "messageId", msg.getId(),
-                                                "seenAt", now);
-
-                                messagingTemplate.convertAndSendToUser(String.valueOf(msg.getSender().getId()),
-                                                "/queue/messages", payload);
-                                messagingTemplate.convertAndSendToUser(String.valueOf(msg.getRecipient().getId()),
-                                                "/queue/messages", payload);
-
-                                // Mark associated notifications as read
-                                notificationService.markChatNotificationsAsRead(msg.getRecipient().getId(),
-                                                msg.getSender().getId());
-                        }
-                }
+                        // Mark associated notifications as read (once per sender)
+                        notificationService.markChatNotificationsAsRead(userId, senderId);
+                });
 
-                if (anyUpdated) {
-                        chatMessageRepository.saveAll(messages);
-                }
+                return seenIds;
         }
 
+        /**
+         * Marks every undelivered message addressed to {@code recipientId} as
+         * delivered with a single UPDATE, under the same row locks as
+         * {@link #markMessagesAsSeen}.
+         *
+         * @return IDs of the messages that transitioned to delivered
+         */
         @Transactional
-        public void markPendingMessagesAsDelivered(Long recipientId) {
-                List<ChatMessage> pendingMessages = chatMessageRepository
-                                .findByRecipient_IdAndDeliveredAtIsNull(recipientId);
+        public List<Long> markPendingMessagesAsDelivered(Long recipientId) {
+                Map<Long, List<Long>> idsBySender = groupIdsBySender(
+                                chatMessageRepository.lockUndeliveredIdsAndSenders(recipientId));
 
-                if (pendingMessages.isEmpty()) {
-                        return;
+                if (idsBySender.isEmpty()) {
+                        return Collections.emptyList();
                 }
 
+                List<Long> deliveredIds = flatten(idsBySender);
                 Instant now = Instant.now(clock);
-                for (ChatMessage msg : pendingMessages) {
-                        msg.setDeliveredAt(now);
+                int updated = chatMessageRepository.markDelivered(deliveredIds, now);
+                requireAllUpdated("delivered", deliveredIds, updated);
 
-                        // Broadcast DELIVERED event to sender
-                        java.util.Map<String, Object> payload = java.util.Map.of(
-                                        "type", "MESSAGE_DELIVERED",
-                                        "messageId", msg.getId(),
-                                        "deliveredAt", now);
+                // One coalesced DELIVERED receipt per sender
+                idsBySender.forEach((senderId, ids) -> broadcastReceipts(
+                                "MESSAGES_DELIVERED", "deliveredAt", senderId, recipientId, ids, now));
 
-                        // Notify sender that their message was delivered
-                        messagingTemplate.convertAndSendToUser(
-                                        String.valueOf(msg.getSender().getId()),
-                                        "/queue/messages",
-                                        payload);
+                return deliveredIds;
+        }
 
-                        // Also notify recipient (so their own UI updates if they have multiple devices)
-                        messagingTemplate.convertAndSendToUser(
-                                        String.valueOf(msg.getRecipient().getId()),
-                                        "/queue/messages",
-                                        payload);
+        /**
+         * Sends one batched receipt frame to the sender (their messages changed
+         * state) and one to the recipient (keeps their other devices in sync).
+         * Large backlogs are split into chunks of {@link #MAX_RECEIPT_IDS_PER_FRAME}.
+         */
+        private void broadcastReceipts(String type, String timestampField, Long senderId, Long recipientId,
+                        List<Long> messageIds, Instant timestamp) {
+                for (int from = 0; from < messageIds.size(); from += MAX_RECEIPT_IDS_PER_FRAME) {
+                        List<Long> chunk = messageIds.subList(from,
+                                        Math.min(from + MAX_RECEIPT_IDS_PER_FRAME, messageIds.size()));
+
+                        Map<String, Object> payload = Map.of(
+                                        "type", type,
+                                        "senderId", senderId,
+                                        "recipientId", recipientId,
+                                        "messageIds", List.copyOf(chunk),
+                                        timestampField, timestamp);
+
+                        messagingTemplate.convertAndSendToUser(String.valueOf(senderId),
+                                        "/queue/messages", payload);
+                        messagingTemplate.convertAndSendToUser(String.valueOf(recipientId),
+                                        "/queue/messages", payload);
                 }
+        }
 
-                chatMessageRepository.saveAll(pendingMessages);
+        // Rows are (messageId, senderId); insertion order is preserved per sender
+        private static Map<Long, List<Long>> groupIdsBySender(List<Object[]> rows) {
+                Map<Long, List<Long>> idsBySender = new LinkedHashMap<>();
+                for (Object[] row : rows) {
+                        idsBySender.computeIfAbsent((Long) row[1], k -> new ArrayList<>()).add((Long) row[0]);
+                }
+                return idsBySender;
+        }
+
+        // The rows are locked, so the guarded UPDATE must hit every selected id;
+        // anything else means the lock was not honoured - roll back rather than
+        // broadcast receipts for rows we did not change
+        private static void requireAllUpdated(String state, List<Long> ids, int updated) {
+                if (updated != ids.size()) {
+                        throw new IllegalStateException("Marked " + updated + " of " + ids.size()
+                                        + " messages as " + state + "; concurrent update detected");
+                }
+        }
+
+        private static List<Long> flatten(Map<Long, List<Long>> idsBySender) {
+                List<Long> ids = new ArrayList<>();
+                idsBySender.values().forEach(ids::addAll);
+                return ids;
         }
 
         // ==================== EDIT MESSAGE ====================
@@ -262,48 +304,72 @@ public class ChatService {
         // ==================== CLEAR CHAT ====================
         @Transactional
         public void clearChat(Long userId, Long friendId) {
-                // Fetch all messages involving both users
-                List<ChatMessage> messages = chatMessageRepository
-                                .findBySender_IdAndRecipient_IdOrSender_IdAndRecipient_IdOrderBySentAtAsc(
-                                                userId, friendId, friendId, userId);
-
-                boolean anyUpdated = false;
-                for (ChatMessage msg : messages) {
-                        boolean isSender = msg.getSender().getId().equals(userId);
+                String conversationKey = ChatMessage.conversationKey(userId, friendId);
 
-                        // Soft delete based on role
-                        if (isSender) {
-                                if (!msg.isDeletedForSender()) {
-                                        msg.setDeletedForSender(true);
-                                        anyUpdated = true;
-                                }
-                        } else {
-                                if (!msg.isDeletedForReceiver()) {
-                                        msg.setDeletedForReceiver(true);
-                                        anyUpdated = true;
-                                }
-                        }
-                }
-
-                if (anyUpdated) {
-                        chatMessageRepository.saveAll(messages);
-                }
+                // Soft delete based on role: one UPDATE per side of the conversation
+                chatMessageRepository.clearForSender(conversationKey, userId);
+                chatMessageRepository.clearForReceiver(conversationKey, userId);
         }
 
         // ==================== GET HISTORY ====================
         @Transactional(readOnly = true)
         public List<ChatMessageResponse> getChatHistory(Long userId, Long otherUserId) {
 
+                verifyHistoryAccess(userId, otherUserId);
+
+                // Own deletions are filtered in SQL; global deletions come back as tombstones
+                return chatMessageRepository
+                                .findVisibleConversation(ChatMessage.conversationKey(userId, otherUserId), userId)
+                                .stream()
+                                .map(this::toResponse)
+                                .toList();
+        }
+
+        /**
+         * Keyset-paginated history. Without a cursor returns the latest page;
+         * with (beforeSentAt, beforeId) returns messages strictly older than it.
+         * Messages in the page are ordered oldest first.
+         */
+        @Transactional(readOnly = true)
+        public ChatHistoryPageResponse getChatHistoryPage(Long userId, Long otherUserId,
+                        Instant beforeSentAt, Long beforeId, Integer limit) {
+
+                if ((beforeSentAt == null) != (beforeId == null)) {
+                        throw new BadRequestException("beforeSentAt and beforeId must be provided together");
+                }
+
+                verifyHistoryAccess(userId, otherUserId);
+
+                int pageSize = limit == null ? DEFAULT_HISTORY_PAGE_SIZE
+                                : Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+
+                // Fetch one extra row to know whether an older page exists
+                String conversationKey = ChatMessage.conversationKey(userId, otherUserId);
+                Pageable pageable = PageRequest.of(0, pageSize + 1);
+                List<ChatMessage> rows = beforeSentAt == null
+                                ? chatMessageRepository.findVisibleConversationLatest(conversationKey, userId, pageable)
+                                : chatMessageRepository.findVisibleConversationBefore(conversationKey, userId,
+                                                beforeSentAt, beforeId, pageable);
+
+                boolean hasMore = rows.size() > pageSize;
+                List<ChatMessage> page = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+                Collections.reverse(page);
+
+                ChatMessage oldest = page.isEmpty() ? null : page.get(0);
+                return new ChatHistoryPageResponse(
+                                page.stream().map(this::toResponse).toList(),
+                                hasMore,
+                                hasMore ? oldest.getSentAt() : null,
+                                hasMore ? oldest.getId() : null);
+        }
+
+        private void verifyHistoryAccess(Long userId, Long otherUserId) {
+
                 if (!userRepository.existsById(otherUserId)) {
                         throw new ResourceNotFoundException("User not found");
                 }
 
                 // Verify Friendship (Bypass for Admins)
-                User u1 = userId < otherUserId ? userRepository.getReferenceById(userId)
-                                : userRepository.getReferenceById(otherUserId);
-                User u2 = userId < otherUserId ? userRepository.getReferenceById(otherUserId)
-                                : userRepository.getReferenceById(userId);
-
                 boolean isAdminInvolved = false;
                 // We need actual User objects to check roles, not references (proxies)
                 // Since repositories were used to get references, we might need to fetch them
@@ -321,30 +387,9 @@ public class ChatService {
                         isAdminInvolved = true;
                 }
 
-                if (!isAdminInvolved && !friendRepository.existsByUser1_IdAndUser2_IdAndStatus(u1.getId(), u2.getId(),
-                                com.Project.Continuum.enums.FriendStatus.ACCEPTED)) {
+                if (!isAdminInvolved && !friendGraph.areFriends(userId, otherUserId)) {
                         throw new AccessDeniedException("You can only view chat history with friends.");
                 }
-
-                return chatMessageRepository.findBySender_IdAndRecipient_IdOrSender_IdAndRecipient_IdOrderBySentAtAsc(
-                                userId, otherUserId, otherUserId, userId).stream()
-                                .filter(msg -> {
-                                        // Filter out messages deleted for this user
-
-                                        // 1. If deleted globally, always SHOW (as tombstone)
-                                        if (msg.isDeletedGlobally())
-                                                return true;
-
-                                        // 2. Otherwise check individual deletes
-                                        boolean isSender = msg.getSender().getId().equals(userId);
-                                        if (isSender && msg.isDeletedForSender())
-                                                return false;
-                                        if (!isSender && msg.isDeletedForReceiver())
-                                                return false;
-                                        return true;
-                                })
-                                .map(this::toResponse)
-                                .toList();
         }
 
         // ==================== HELPER METHODS ====================
@@ -355,11 +400,7 @@ public class ChatService {
                         return;
                 }
 
-                User u1 = sender.getId() < recipient.getId() ? sender : recipient;
-                User u2 = sender.getId() < recipient.getId() ? recipient : sender;
-
-                if (!friendRepository.existsByUser1_IdAndUser2_IdAndStatus(u1.getId(), u2.getId(),
-                                com.Project.Continuum.enums.FriendStatus.ACCEPTED)) {
+                if (!friendGraph.areFriends(sender.getId(), recipient.getId())) {
                         throw new AccessDeniedException("You can only chat with friends (Request Accepted)");
                 }
         }
@@ -5,6 +5,7 @@ import com.Project.Continuum.enums.AuthProvider;
 import com.Project.Continuum.enums.UserRole;
 import com.Project.Continuum.exception.BadRequestException;
 import com.Project.Continuum.repository.UserRepository;
+import com.Project.Continuum.security.AuthPrincipalCache;
 import com.Project.Continuum.security.JwtUtil;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
@@ -18,10 +19,12 @@ public class DevAuthService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final AuthPrincipalCache authPrincipalCache;
 
-    public DevAuthService(UserRepository userRepository, JwtUtil jwtUtil) {
+    public DevAuthService(UserRepository userRepository, JwtUtil jwtUtil, AuthPrincipalCache authPrincipalCache) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
+        this.authPrincipalCache = authPrincipalCache;
     }
 
     @Transactional
@@ -44,6 +47,7 @@ public class DevAuthService {
 
                     user.setSessionToken(sessionToken);
                     userRepository.save(user);
+                    authPrincipalCache.invalidate(user.getId());
                     return jwtUtil.generateToken(user.getId(), sessionToken, user.getRole().name());
                 })
                 .orElseGet(() -> {
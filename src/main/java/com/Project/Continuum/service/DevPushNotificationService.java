@@ -44,7 +44,7 @@ public class DevPushNotificationService implements PushNotificationService {
     }
 
     @Override
-    public void sendToUser(Long userId, String title, String body, String data) {
-        log.info("Push sent to user {} (DEV NO-OP): {} - {}", userId, title, body);
+    public void sendToUser(Long userId, String title, String body, String data, String topic) {
+        log.info("Push sent to user {} (DEV NO-OP, topic={}): {} - {}", userId, topic, title, body);
     }
 }
@@ -23,26 +23,25 @@ public class FriendService {
 
         private final FriendRepository friendRepository;
         private final ExchangeSessionRepository exchangeSessionRepository;
-        private final com.Project.Continuum.repository.ChatMessageRepository chatMessageRepository;
-        private final com.Project.Continuum.repository.UserRepository userRepository;
         private final com.Project.Continuum.store.PresenceStore presenceStore;
         private final org.springframework.messaging.simp.SimpMessageSendingOperations messagingTemplate;
         private final NotificationService notificationService;
+        private final com.Project.Continuum.store.FriendGraph friendGraph;
+
+        private static final int MAX_FRIENDS_PAGE_SIZE = 500;
 
         public FriendService(FriendRepository friendRepository,
                         ExchangeSessionRepository exchangeSessionRepository,
-                        com.Project.Continuum.repository.ChatMessageRepository chatMessageRepository,
-                        com.Project.Continuum.repository.UserRepository userRepository,
                         com.Project.Continuum.store.PresenceStore presenceStore,
                         org.springframework.messaging.simp.SimpMessageSendingOperations messagingTemplate,
-                        NotificationService notificationService) {
+                        NotificationService notificationService,
+                        com.Project.Continuum.store.FriendGraph friendGraph) {
                 this.friendRepository = friendRepository;
                 this.exchangeSessionRepository = exchangeSessionRepository;
-                this.chatMessageRepository = chatMessageRepository;
-                this.userRepository = userRepository;
                 this.presenceStore = presenceStore;
                 this.messagingTemplate = messagingTemplate;
                 this.notificationService = notificationService;
+                this.friendGraph = friendGraph;
         }
 
         // 🔥 Send Friend Request
@@ -96,6 +95,7 @@ public class FriendService {
                 friend.setStatus(FriendStatus.PENDING); // Set Pending
 
                 friendRepository.save(friend);
+                friendGraph.invalidate(sender.getId(), receiver.getId());
 
                 // 🔥 Broadcast real-time event to receiver (for data sync)
                 messagingTemplate.convertAndSendToUser(
@@ -134,6 +134,7 @@ public class FriendService {
 
                 friend.setStatus(FriendStatus.ACCEPTED);
                 friendRepository.save(friend);
+                friendGraph.invalidate(currentUserId, requesterId);
 
                 // 🔥 Broadcast real-time event to requester (they now have a new friend)
                 User currentUser = friend.getUser1().getId().equals(currentUserId) ? friend.getUser1()
@@ -178,6 +179,7 @@ public class FriendService {
 
                 friend.setStatus(FriendStatus.REJECTED);
                 friendRepository.save(friend);
+                friendGraph.invalidate(currentUserId, requesterId);
 
                 // 🔥 Broadcast real-time event to requester
                 messagingTemplate.convertAndSendToUser(
@@ -198,6 +200,7 @@ public class FriendService {
                                 .orElseThrow(() -> new ResourceNotFoundException("Friendship not found"));
 
                 friendRepository.delete(friend);
+                friendGraph.invalidate(currentUserId, friendId);
 
                 // 🔥 Broadcast REMOVED to the OTHER person
                 // (The one who initiated the removal knows because they clicked the button, but
@@ -216,58 +219,33 @@ public class FriendService {
                                                 "friendId", currentUserId));
         }
 
-        public List<FriendResponse> getFriends(Long currentUserId) {
-
-                List<Friend> friendships = friendRepository.findByUser1_IdOrUser2_Id(currentUserId, currentUserId);
-                // Use a map to handle deduplication and easy access
-                java.util.Map<Long, FriendResponse> friendMap = new java.util.HashMap<>();
-
-                // 1. Add Accepted Friends
-                friendships.stream()
-                                .filter(f -> f.getStatus() == FriendStatus.ACCEPTED)
-                                .forEach(friend -> {
-                                        User otherUser = friend.getUser1().getId().equals(currentUserId)
-                                                        ? friend.getUser2()
-                                                        : friend.getUser1();
-
-                                        friendMap.put(otherUser.getId(), new FriendResponse(
-                                                        otherUser.getId(),
-                                                        otherUser.getName(),
-                                                        presenceStore.getStatus(otherUser.getId()),
-                                                        otherUser.getRole() != null ? otherUser.getRole().name()
-                                                                        : "USER"));
-                                });
-
-                // 2. Add Chat Partners (who might not be friends, e.g., Admins)
-                // Get all users who sent me a message
-                List<Long> senders = chatMessageRepository.findDistinctSendersByRecipientId(currentUserId);
-                for (Long senderId : senders) {
-                        if (!friendMap.containsKey(senderId) && !senderId.equals(currentUserId)) {
-                                userRepository.findById(senderId).ifPresent(user -> {
-                                        friendMap.put(senderId, new FriendResponse(
-                                                        user.getId(),
-                                                        user.getName(),
-                                                        presenceStore.getStatus(user.getId()),
-                                                        user.getRole() != null ? user.getRole().name() : "USER"));
-                                });
-                        }
-                }
-
-                // Get all users I sent a message to
-                List<Long> recipients = chatMessageRepository.findDistinctRecipientsBySenderId(currentUserId);
-                for (Long recipientId : recipients) {
-                        if (!friendMap.containsKey(recipientId) && !recipientId.equals(currentUserId)) {
-                                userRepository.findById(recipientId).ifPresent(user -> {
-                                        friendMap.put(recipientId, new FriendResponse(
-                                                        user.getId(),
-                                                        user.getName(),
-                                                        presenceStore.getStatus(user.getId()),
-                                                        user.getRole() != null ? user.getRole().name() : "USER"));
-                                });
-                        }
-                }
-
-                return new java.util.ArrayList<>(friendMap.values());
+        /**
+         * One page of the user's contacts: ACCEPTED friends plus chat partners
+         * (e.g. Admins), ordered by user id. Pass the last friendUserId of a
+         * page as afterId to get the next one; a page shorter than limit is
+         * the last. Loaded with a single projection query, presence is
+         * overlaid from PresenceStore.
+         */
+        @Transactional(readOnly = true)
+        public List<FriendResponse> getFriends(Long currentUserId, Long afterId, int limit) {
+                int pageSize = Math.max(1, Math.min(limit, MAX_FRIENDS_PAGE_SIZE));
+
+                return friendRepository
+                                .findContactsPage(currentUserId, afterId != null ? afterId : 0L,
+                                                org.springframework.data.domain.PageRequest.of(0, pageSize))
+                                .stream()
+                                .map(row -> {
+                                        Long userId = (Long) row[0];
+                                        com.Project.Continuum.enums.UserRole role = (com.Project.Continuum.enums.UserRole) row[3];
+                                        return new FriendResponse(
+                                                        userId,
+                                                        (String) row[1],
+                                                        presenceStore.getStatus(userId),
+                                                        role != null ? role.name() : "USER",
+                                                        (String) row[2],
+                                                        (FriendStatus) row[4]);
+                                })
+                                .toList();
         }
 
         /**
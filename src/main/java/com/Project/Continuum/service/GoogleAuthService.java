@@ -6,6 +6,7 @@ import com.Project.Continuum.enums.PresenceStatus;
 import com.Project.Continuum.enums.UserRole;
 import com.Project.Continuum.exception.BadRequestException;
 import com.Project.Continuum.repository.UserRepository;
+import com.Project.Continuum.security.AuthPrincipalCache;
 import com.Project.Continuum.security.JwtUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
@@ -38,11 +39,13 @@ public class GoogleAuthService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final AuthPrincipalCache authPrincipalCache;
     private final RestTemplate restTemplate;
 
-    public GoogleAuthService(UserRepository userRepository, JwtUtil jwtUtil) {
+    public GoogleAuthService(UserRepository userRepository, JwtUtil jwtUtil, AuthPrincipalCache authPrincipalCache) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
+        this.authPrincipalCache = authPrincipalCache;
         this.restTemplate = new RestTemplate();
     }
 
@@ -79,6 +82,7 @@ public class GoogleAuthService {
         String sessionToken = UUID.randomUUID().toString();
         user.setSessionToken(sessionToken);
         userRepository.save(user);
+        authPrincipalCache.invalidate(user.getId());
         return jwtUtil.generateToken(user.getId(), sessionToken, user.getRole().name());
     }
 
@@ -8,11 +8,22 @@ import com.Project.Continuum.enums.SkillType;
 import com.Project.Continuum.enums.PresenceStatus;
 import com.Project.Continuum.matching.*;
 import com.Project.Continuum.repository.*;
+import com.Project.Continuum.store.FriendGraph;
+import com.Project.Continuum.store.PresenceStore;
+import com.Project.Continuum.store.SkillMatchIndex;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 @Service
 @Transactional(readOnly = true)
@@ -20,65 +31,33 @@ public class MatchingService {
 
     private final UserRepository userRepository;
     private final UserSkillRepository userSkillRepository;
-    private final FriendRepository friendRepository;
+    private final FriendGraph friendGraph;
     private final UserProfileRepository profileRepository;
     private final ExchangeSessionRepository exchangeSessionRepository; // Added dependency
+    private final SkillMatchIndex skillMatchIndex;
+    private final PresenceStore presenceStore;
 
     public MatchingService(
             UserRepository userRepository,
             UserSkillRepository userSkillRepository,
-            FriendRepository friendRepository,
+            FriendGraph friendGraph,
             UserProfileRepository profileRepository,
-            ExchangeSessionRepository exchangeSessionRepository) {
+            ExchangeSessionRepository exchangeSessionRepository,
+            SkillMatchIndex skillMatchIndex,
+            PresenceStore presenceStore) {
 
         this.userRepository = userRepository;
         this.userSkillRepository = userSkillRepository;
-        this.friendRepository = friendRepository;
+        this.friendGraph = friendGraph;
         this.profileRepository = profileRepository;
         this.exchangeSessionRepository = exchangeSessionRepository;
+        this.skillMatchIndex = skillMatchIndex;
+        this.presenceStore = presenceStore;
     }
 
     public MatchDecision findMatch(Long userId, MatchingRequest request) {
 
-        /*
-         * =====================================================
-         * 1️⃣ Validate user exists
-         * =====================================================
-         */
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        /*
-         * =====================================================
-         * 2️⃣ STRICT VALIDATION (Category, Ownership, Reciprocity)
-         * =====================================================
-         */
-        UserSkill teachSkill = userSkillRepository
-                .findByUser_IdAndSkill_IdAndSkillType(userId, request.getTeachSkillId(), SkillType.TEACH)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "You do not possess the specified Teach skill: " + request.getTeachSkillId()));
-
-        UserSkill learnSkill = userSkillRepository
-                .findByUser_IdAndSkill_IdAndSkillType(userId, request.getLearnSkillId(), SkillType.LEARN)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "You do not possess the specified Learn skill: " + request.getLearnSkillId()));
-
-        if (!teachSkill.getSkill().getCategory().equals(request.getCategory())) {
-            throw new IllegalArgumentException("Teach skill category mismatch. Expected: " + request.getCategory());
-        }
-
-        if (!learnSkill.getSkill().getCategory().equals(request.getCategory())) {
-            throw new IllegalArgumentException("Learn skill category mismatch. Expected: " + request.getCategory());
-        }
-
-        if (teachSkill.getSkill().getId().equals(learnSkill.getSkill().getId())) {
-            // Same-skill exchanges are allowed ONLY for language-based skills
-            // to support peer-to-peer conversation practice.
-            // All other categories require complementary skills.
-            if (!teachSkill.getSkill().getCategory().equalsIgnoreCase("Languages")) {
-                throw new IllegalArgumentException("Teach and Learn skills cannot be the same.");
-            }
-        }
+        validateRequest(userId, request);
 
         List<MatchCandidate> candidates = new ArrayList<>();
 
@@ -89,9 +68,7 @@ public class MatchingService {
          */
 
         // NEW: Fetch recently met users to exclude them (e.g., last 15 minutes)
-        List<Long> recentlyMetIds = exchangeSessionRepository.findRecentlyMetUserIds(
-                userId,
-                java.time.Instant.now().minus(15, java.time.temporal.ChronoUnit.MINUTES));
+        List<Long> recentlyMetIds = findRecentlyMetUserIds(userId);
 
         /*
          * =====================================================
@@ -100,72 +77,57 @@ public class MatchingService {
          */
         // Find users who:
         // 1. TEACH what I want to LEARN (request.learnSkillId)
-        // 2. LEARN what I can TEACH (request.teachSkillId) - implied check, but we
-        // filter candidates by this reciprocity
+        // 2. LEARN what I can TEACH (request.teachSkillId) - strict reciprocity,
+        // relaxed for same-skill language conversation
         // 3. Are in the SAME category (implied by skill IDs being correct)
+        // Resolved as a set intersection over the in-memory SkillMatchIndex.
 
-        List<UserSkill> potentialPartners = userSkillRepository.findBySkill_IdAndSkillType(
+        boolean isLanguageConversation = isLanguageConversation(request);
+
+        Set<Long> partnerIds = skillMatchIndex.findReciprocalPartners(
+                request.getTeachSkillId(),
                 request.getLearnSkillId(),
-                SkillType.TEACH);
+                !isLanguageConversation);
 
-        for (UserSkill partnerTeachSkill : potentialPartners) {
+        // 1️⃣ Self exclusion, 2b️⃣ Recently Met exclusion, 3️⃣ Presence check
+        partnerIds.remove(userId);
+        partnerIds.removeAll(recentlyMetIds);
+        partnerIds.removeIf(id -> presenceStore.getStatus(id) != PresenceStatus.ONLINE);
 
-            User partner = partnerTeachSkill.getUser();
+        // 2️⃣ Friend exclusion (in-memory friend graph)
+        partnerIds.removeIf(id -> friendGraph.isConnected(userId, id));
 
-            // 1️⃣ Self exclusion
-            if (partner.getId().equals(userId))
-                continue;
+        if (!partnerIds.isEmpty()) {
 
-            // 2️⃣ Friend exclusion
-            Long a = Math.min(userId, partner.getId());
-            Long b = Math.max(userId, partner.getId());
-            if (friendRepository.existsByUser1_IdAndUser2_Id(a, b)) {
-                continue;
-            }
+            // 4️⃣ Load candidate details in bulk (DB stays authoritative over the index)
+            List<UserSkill> potentialPartners = userSkillRepository.findWithDetailsBySkillAndUsers(
+                    request.getLearnSkillId(),
+                    SkillType.TEACH,
+                    partnerIds);
 
-            // 2b️⃣ Recently Met Exclusion
-            if (recentlyMetIds.contains(partner.getId())) {
-                continue; // Skip user we just met
-            }
+            Map<Long, String> headlines = new HashMap<>();
+            profileRepository.findByUser_IdIn(partnerIds)
+                    .forEach(p -> headlines.put(p.getUser().getId(), p.getHeadline()));
 
-            // 3️⃣ Presence check
-            if (partner.getPresenceStatus() != PresenceStatus.ONLINE) {
-                continue;
-            }
+            for (UserSkill partnerTeachSkill : potentialPartners) {
 
-            // 4️⃣ Strict Reciprocity Check: Does Partner want to LEARN what I TEACH?
-            boolean partnerWantsToLearnMySkill = userSkillRepository.existsByUser_IdAndSkill_IdAndSkillType(
-                    partner.getId(),
-                    request.getTeachSkillId(),
-                    SkillType.LEARN);
+                User partner = partnerTeachSkill.getUser();
 
-            boolean isLanguageConversation = teachSkill.getSkill().getId().equals(learnSkill.getSkill().getId())
-                    && teachSkill.getSkill().getCategory().equalsIgnoreCase("Languages");
+                // 5️⃣ Level compatibility (Partner teaches >= My needs)
+                // Note: In a real app we'd compare levels. For now, we assume if they teach it,
+                // it's ok.
+                // Or we can check partnerTeachSkill.getLevel() vs learnSkill.getLevel()
 
-            // For language conversation, strictly requiring the partner to "learn" the
-            // language is optional
-            // as long as they teach it (which is guaranteed by the candidate query).
-            if (!partnerWantsToLearnMySkill && !isLanguageConversation) {
-                continue;
-            }
+                String headline = headlines.get(partner.getId());
 
-            // 5️⃣ Level compatibility (Partner teaches >= My needs)
-            // Note: In a real app we'd compare levels. For now, we assume if they teach it,
-            // it's ok.
-            // Or we can check partnerTeachSkill.getLevel() vs learnSkill.getLevel()
-
-            String headline = profileRepository
-                    .findByUser_Id(partner.getId())
-                    .map(UserProfile::getHeadline)
-                    .orElse("");
-
-            candidates.add(new MatchCandidate(
-                    partner.getId(),
-                    partner.getName(),
-                    headline,
-                    partnerTeachSkill.getSkill().getName(), // Skill they teach (my learn goal)
-                    partnerTeachSkill.getSkill().getCategory(),
-                    partnerTeachSkill.getLevel().name()));
+                candidates.add(new MatchCandidate(
+                        partner.getId(),
+                        partner.getName(),
+                        headline != null ? headline : "",
+                        partnerTeachSkill.getSkill().getName(), // Skill they teach (my learn goal)
+                        partnerTeachSkill.getSkill().getCategory(),
+                        partnerTeachSkill.getLevel().name()));
+            }
         }
 
         /*
@@ -190,4 +152,108 @@ public class MatchingService {
                 candidates,
                 "Suitable online users found");
     }
+
+    /**
+     * Validates that the user owns both skills, that they belong to the
+     * requested category and that they are complementary.
+     */
+    public void validateRequest(Long userId, MatchingRequest request) {
+
+        /*
+         * =====================================================
+         * 1️⃣ Validate user exists
+         * =====================================================
+         */
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        /*
+         * =====================================================
+         * 2️⃣ STRICT VALIDATION (Category, Ownership, Reciprocity)
+         * =====================================================
+         */
+        UserSkill teachSkill = userSkillRepository
+                .findByUser_IdAndSkill_IdAndSkillType(userId, request.getTeachSkillId(), SkillType.TEACH)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "You do not possess the specified Teach skill: " + request.getTeachSkillId()));
+
+        UserSkill learnSkill = userSkillRepository
+                .findByUser_IdAndSkill_IdAndSkillType(userId, request.getLearnSkillId(), SkillType.LEARN)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "You do not possess the specified Learn skill: " + request.getLearnSkillId()));
+
+        if (!teachSkill.getSkill().getCategory().equals(request.getCategory())) {
+            throw new IllegalArgumentException("Teach skill category mismatch. Expected: " + request.getCategory());
+        }
+
+        if (!learnSkill.getSkill().getCategory().equals(request.getCategory())) {
+            throw new IllegalArgumentException("Learn skill category mismatch. Expected: " + request.getCategory());
+        }
+
+        if (teachSkill.getSkill().getId().equals(learnSkill.getSkill().getId())) {
+            // Same-skill exchanges are allowed ONLY for language-based skills
+            // to support peer-to-peer conversation practice.
+            // All other categories require complementary skills.
+            if (!teachSkill.getSkill().getCategory().equalsIgnoreCase("Languages")) {
+                throw new IllegalArgumentException("Teach and Learn skills cannot be the same.");
+            }
+        }
+    }
+
+    /**
+     * Builds the partner eligibility check used by the waiting queue:
+     * not self, not recently met, not already connected, and ONLINE.
+     * 
+     * MatchingQueue runs the check under its stripe lock, so everything that
+     * may hit the DB (recent sessions, the caller's friend adjacency) is
+     * resolved here, before the claim; the check itself is memory-only.
+     */
+    public Predicate<Long> partnerFilter(Long userId) {
+        Set<Long> recentlyMetIds = new HashSet<>(findRecentlyMetUserIds(userId));
+        long[] connectedIds = friendGraph.connectedIds(userId);
+
+        return partnerId -> {
+            if (partnerId.equals(userId) || recentlyMetIds.contains(partnerId)) {
+                return false;
+            }
+            if (presenceStore.getStatus(partnerId) != PresenceStatus.ONLINE) {
+                return false;
+            }
+            return Arrays.binarySearch(connectedIds, partnerId) < 0;
+        };
+    }
+
+    /**
+     * Pair eligibility for a whole batch tick: recent sessions among the
+     * waiting pool are loaded with one query, friendships come from the
+     * friend graph.
+     */
+    public BiPredicate<Long, Long> batchPairFilter(Collection<Long> userIds) {
+        Set<String> excludedPairs = new HashSet<>();
+        exchangeSessionRepository.findRecentlyMetPairsAmong(
+                userIds,
+                java.time.Instant.now().minus(15, java.time.temporal.ChronoUnit.MINUTES))
+                .forEach(row -> excludedPairs.add(pairKey((Long) row[0], (Long) row[1])));
+
+        return (a, b) -> !a.equals(b)
+                && !excludedPairs.contains(pairKey(a, b))
+                && !friendGraph.isConnected(a, b)
+                && presenceStore.getStatus(a) == PresenceStatus.ONLINE
+                && presenceStore.getStatus(b) == PresenceStatus.ONLINE;
+    }
+
+    private static String pairKey(Long a, Long b) {
+        return Math.min(a, b) + ":" + Math.max(a, b);
+    }
+
+    private List<Long> findRecentlyMetUserIds(Long userId) {
+        return exchangeSessionRepository.findRecentlyMetUserIds(
+                userId,
+                java.time.Instant.now().minus(15, java.time.temporal.ChronoUnit.MINUTES));
+    }
+
+    private boolean isLanguageConversation(MatchingRequest request) {
+        return request.getTeachSkillId().equals(request.getLearnSkillId())
+                && request.getCategory().equalsIgnoreCase("Languages");
+    }
 }
@@ -0,0 +1,135 @@
+package com.Project.Continuum.service;
+
+import com.Project.Continuum.entity.Notification;
+import com.Project.Continuum.enums.NotificationType;
+import com.Project.Continuum.repository.NotificationRepository;
+import com.Project.Continuum.repository.PushDeadLetterRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * NotificationRetentionService - Bounded, transactional units of work for
+ * the notification retention job. Each call touches at most one batch so a
+ * run never holds long locks on the notifications table.
+ */
+@Service
+public class NotificationRetentionService {
+
+    static final String SUMMARY_TITLE = "Earlier notifications";
+
+    private final NotificationRepository notificationRepository;
+    private final PushDeadLetterRepository pushDeadLetterRepository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    public NotificationRetentionService(
+            NotificationRepository notificationRepository,
+            PushDeadLetterRepository pushDeadLetterRepository,
+            ObjectMapper objectMapper,
+            Clock clock) {
+        this.notificationRepository = notificationRepository;
+        this.pushDeadLetterRepository = pushDeadLetterRepository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Delete up to {@code batchSize} read notifications created before the
+     * cutoff, oldest first.
+     *
+     * @return rows deleted
+     */
+    @Transactional
+    public int deleteReadBatch(Instant cutoff, int batchSize) {
+        List<Long> ids = notificationRepository.findReadIdsCreatedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return notificationRepository.deleteByIdIn(ids);
+    }
+
+    /**
+     * Fold up to {@code batchSize} of the user's oldest unread notifications
+     * into a single unread summary row so at most {@code cap} unread rows
+     * remain (summary included). An existing summary keeps its createdAt;
+     * later runs only update its count.
+     *
+     * @return rows removed (the summary row is not counted)
+     */
+    @Transactional
+    public int compactUnreadBatch(Long userId, int cap, int batchSize) {
+        Notification summary = notificationRepository.findUnreadSystemByTitle(userId, SUMMARY_TITLE)
+                .stream()
+                .findFirst()
+                .orElse(null);
+
+        long unread = notificationRepository.countUnreadByUserId(userId);
+        long excess = unread - cap + (summary == null ? 1 : 0);
+        if (excess <= 0) {
+            return 0;
+        }
+
+        Long summaryId = summary != null ? summary.getId() : -1L;
+        List<Long> ids = notificationRepository.findOldestUnreadIds(
+                userId, summaryId, PageRequest.of(0, (int) Math.min(excess, batchSize)));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int removed = notificationRepository.deleteByIdIn(ids);
+
+        if (summary == null) {
+            summary = new Notification();
+            summary.setUserId(userId);
+            summary.setType(NotificationType.SYSTEM);
+            summary.setTitle(SUMMARY_TITLE);
+            summary.setRead(false);
+            summary.setCreatedAt(Instant.now(clock));
+        }
+        long total = summarizedCount(summary) + removed;
+        summary.setMessage(total == 1
+                ? "1 older unread notification was archived."
+                : total + " older unread notifications were archived.");
+        summary.setPayload("{\"compacted\":" + total + "}");
+        notificationRepository.save(summary);
+
+        return removed;
+    }
+
+    /**
+     * Delete up to {@code batchSize} push dead letters recorded before the
+     * cutoff, oldest first.
+     *
+     * @return rows deleted
+     */
+    @Transactional
+    public int deleteDeadLetterBatch(Instant cutoff, int batchSize) {
+        List<Long> ids = pushDeadLetterRepository.findIdsFailedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return pushDeadLetterRepository.deleteByIdIn(ids);
+    }
+
+    public List<Long> findUsersOverUnreadCap(int cap) {
+        return notificationRepository.findUserIdsWithUnreadOver(cap);
+    }
+
+    private long summarizedCount(Notification summary) {
+        if (summary.getPayload() == null) {
+            return 0;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(summary.getPayload()).get("compacted");
+            return node != null && node.canConvertToLong() ? node.longValue() : 0;
+        } catch (Exception ignored) {
+            return 0;
+        }
+    }
+}
@@ -9,14 +9,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.Project.Continuum.exception.AccessDeniedException;
 import com.Project.Continuum.exception.ResourceNotFoundException;
+import com.Project.Continuum.push.ChatNotificationCoalescer;
+import com.Project.Continuum.push.PushDispatcher;
 import com.Project.Continuum.repository.NotificationRepository;
 import com.Project.Continuum.store.PresenceStore;
+import com.Project.Continuum.store.UnreadCountStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Clock;
 import java.time.Duration;
@@ -29,7 +34,7 @@ import java.util.stream.Collectors;
  * 
  * All notification creation MUST go through this service.
  * Handles persistence + real-time WebSocket delivery + push notification
- * fallback.
+ * fallback (dispatched asynchronously via {@link PushDispatcher}).
  */
 @Service
 public class NotificationService {
@@ -38,10 +43,13 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final PresenceStore presenceStore;
     private final SimpMessageSendingOperations messagingTemplate;
-    private final PushNotificationService pushService;
+    private final PushDispatcher pushDispatcher;
+    private final ChatNotificationCoalescer chatCoalescer;
+    private final UnreadCountStore unreadCountStore;
     private final ObjectMapper objectMapper;
     private final Clock clock;
     private static final Duration REALTIME_ACTIVITY_WINDOW = Duration.ofMinutes(2);
+    private static final int MAX_PAGE_SIZE = 100;
 
     // Notification types that should trigger push when user is offline
     private static final List<NotificationType> PUSH_ENABLED_TYPES = List.of(
@@ -56,13 +64,17 @@ public class NotificationService {
             NotificationRepository notificationRepository,
             PresenceStore presenceStore,
             SimpMessageSendingOperations messagingTemplate,
-            PushNotificationService pushService,
+            PushDispatcher pushDispatcher,
+            ChatNotificationCoalescer chatCoalescer,
+            UnreadCountStore unreadCountStore,
             ObjectMapper objectMapper,
             Clock clock) {
         this.notificationRepository = notificationRepository;
         this.presenceStore = presenceStore;
         this.messagingTemplate = messagingTemplate;
-        this.pushService = pushService;
+        this.pushDispatcher = pushDispatcher;
+        this.chatCoalescer = chatCoalescer;
+        this.unreadCountStore = unreadCountStore;
         this.objectMapper = objectMapper;
         this.clock = clock;
     }
@@ -94,8 +106,10 @@ public class NotificationService {
         notification.setPayload(payload);
         notification.setRead(false);
         notification.setCreatedAt(Instant.now(clock));
+        applyRoutingFields(notification, payload);
 
         notificationRepository.save(notification);
+        onUnreadChanged(userId, () -> unreadCountStore.adjust(userId, 1));
 
         boolean hasLiveSocket = isRealtimeReachable(userId);
 
@@ -108,14 +122,100 @@ public class NotificationService {
             return notification;
         }
 
-        // User is offline/unreachable - send push notification for important types
+        // User is offline/unreachable - queue a push for important types.
+        // Delivery happens off the request thread, after this transaction commits.
         if (PUSH_ENABLED_TYPES.contains(type)) {
-            pushService.sendToUser(userId, title, message, buildPushData(userId, type, payload));
+            pushDispatcher.dispatch(userId, title, message, buildPushData(notification));
         }
 
         return notification;
     }
 
+    /**
+     * Create or merge the CHAT_MESSAGE notification for a (recipient, sender)
+     * thread.
+     * 
+     * While the thread's row is unread and inside the merge window it is
+     * updated in place ("N new messages from X") instead of adding a row.
+     * Offline recipients get one push per burst, collapsed per sender via the
+     * Web Push Topic header (see {@link ChatNotificationCoalescer}).
+     *
+     * @param payload JSON payload; a "count" field is added
+     */
+    @Transactional
+    public Notification createChatNotification(
+            Long recipientId,
+            Long senderId,
+            String senderName,
+            String preview,
+            String payload) {
+
+        Instant now = Instant.now(clock);
+        Notification notification = null;
+        int count = 1;
+
+        ChatNotificationCoalescer.ChatThread thread = chatCoalescer.activeThread(recipientId, senderId);
+        if (thread != null
+                && notificationRepository.incrementMessageCount(thread.notificationId(), recipientId) == 1) {
+            // Count comes from the row we just incremented (and now hold locked)
+            notification = notificationRepository.findByIdAndUserId(thread.notificationId(), recipientId)
+                    .orElse(null);
+            if (notification != null) {
+                count = notification.getMessageCount();
+            }
+        }
+
+        boolean merged = notification != null;
+        if (!merged) {
+            notification = new Notification();
+            notification.setUserId(recipientId);
+            notification.setType(NotificationType.CHAT_MESSAGE);
+            notification.setSenderId(senderId);
+            notification.setRead(false);
+            notification.setMessageCount(1);
+        }
+
+        notification.setTitle(count == 1
+                ? "New message from " + senderName
+                : count + " new messages from " + senderName);
+        notification.setMessage(preview);
+        notification.setPayload(withCount(payload, count));
+        notification.setCreatedAt(now);
+
+        notificationRepository.save(notification);
+        chatCoalescer.recordThread(recipientId, senderId, notification.getId());
+        if (!merged) {
+            onUnreadChanged(recipientId, () -> unreadCountStore.adjust(recipientId, 1));
+        }
+
+        if (isRealtimeReachable(recipientId)) {
+            NotificationResponse response = new NotificationResponse(notification);
+            messagingTemplate.convertAndSendToUser(
+                    String.valueOf(recipientId),
+                    "/queue/notifications",
+                    merged
+                            ? java.util.Map.of("type", "NOTIFICATION_UPDATED", "notification", response)
+                            : response);
+            return notification;
+        }
+
+        chatCoalescer.schedulePush(recipientId, senderId, notification.getTitle(), preview,
+                buildPushData(notification));
+
+        return notification;
+    }
+
+    private String withCount(String payload, int count) {
+        try {
+            JsonNode parsed = payload != null ? objectMapper.readTree(payload) : null;
+            ObjectNode node = parsed != null && parsed.isObject() ? (ObjectNode) parsed : objectMapper.createObjectNode();
+            node.put("count", count);
+            return node.toString();
+        } catch (Exception ignored) {
+            return payload;
+        }
+    }
+
     private boolean isRealtimeReachable(Long userId) {
         PresenceStatus status = presenceStore.getStatus(userId);
         int connectionCount = presenceStore.getConnectionCount(userId);
@@ -133,43 +233,64 @@ public class NotificationService {
         return !lastSeen.isBefore(cutoff);
     }
 
-    private String buildPushData(Long recipientUserId, NotificationType type, String payload) {
-        ObjectNode dataNode = objectMapper.createObjectNode();
+    /**
+     * Promote routing fields from the JSON payload into the typed columns.
+     * Parsed once at write time so read-marking and deep links never touch
+     * the payload again.
+     * 
+     * senderId is the counterpart user: the first of senderId / callerId /
+     * receiverId / requesterId / friendId that is not the recipient.
+     */
+    private void applyRoutingFields(Notification notification, String payload) {
+        if (payload == null || payload.isBlank()) {
+            return;
+        }
 
-        if (payload != null && !payload.isBlank()) {
-            try {
-                JsonNode parsed = objectMapper.readTree(payload);
-                if (parsed != null && parsed.isObject()) {
-                    dataNode.setAll((ObjectNode) parsed);
-                }
-            } catch (Exception ignored) {
-                // Keep push delivery resilient even if payload is malformed JSON.
+        JsonNode parsed;
+        try {
+            parsed = objectMapper.readTree(payload);
+        } catch (Exception ignored) {
+            // Keep notification delivery resilient even if payload is malformed JSON.
+            return;
+        }
+        if (parsed == null || !parsed.isObject()) {
+            return;
+        }
+
+        for (String field : List.of("senderId", "callerId", "receiverId", "requesterId", "friendId")) {
+            Long id = getLong(parsed, field);
+            if (id != null && !id.equals(notification.getUserId())) {
+                notification.setSenderId(id);
+                break;
             }
         }
+        notification.setCallId(getLong(parsed, "callId"));
+        notification.setSessionId(getLong(parsed, "sessionId"));
+    }
 
-        dataNode.put("type", type.name());
-        dataNode.put("url", resolveNotificationUrl(recipientUserId, type, dataNode));
+    private String buildPushData(Notification notification) {
+        ObjectNode dataNode = objectMapper.createObjectNode();
+        dataNode.put("type", notification.getType().name());
+        dataNode.put("url", resolveNotificationUrl(notification));
+        if (notification.getSenderId() != null) {
+            dataNode.put("senderId", notification.getSenderId());
+        }
+        if (notification.getCallId() != null) {
+            dataNode.put("callId", notification.getCallId());
+        }
+        if (notification.getSessionId() != null) {
+            dataNode.put("sessionId", notification.getSessionId());
+        }
         return dataNode.toString();
     }
 
-    private String resolveNotificationUrl(Long recipientUserId, NotificationType type, ObjectNode dataNode) {
-        return switch (type) {
-            case CHAT_MESSAGE -> {
-                Long senderId = getLong(dataNode, "senderId");
-                yield senderId != null ? "/chat/" + senderId : "/app";
-            }
-            case CALL_INCOMING, CALL_MISSED -> {
-                Long counterpartId = firstNonNull(
-                        getLong(dataNode, "callerId"),
-                        getLong(dataNode, "receiverId"),
-                        getLong(dataNode, "senderId"),
-                        getLong(dataNode, "friendId"),
-                        getLong(dataNode, "requesterId"));
-                if (counterpartId != null && !counterpartId.equals(recipientUserId)) {
-                    yield "/chat/" + counterpartId;
-                }
-                yield "/friends?section=friends";
-            }
+    private String resolveNotificationUrl(Notification notification) {
+        Long counterpartId = notification.getSenderId();
+        return switch (notification.getType()) {
+            case CHAT_MESSAGE -> counterpartId != null ? "/chat/" + counterpartId : "/app";
+            case CALL_INCOMING, CALL_MISSED -> counterpartId != null
+                    ? "/chat/" + counterpartId
+                    : "/friends?section=friends";
             case FRIEND_REQUEST_RECEIVED -> "/friends?section=requests";
             case FRIEND_REQUEST_ACCEPTED -> "/friends?section=friends";
             case MATCH_FOUND -> "/exchanges";
@@ -177,7 +298,7 @@ public class NotificationService {
         };
     }
 
-    private static Long getLong(ObjectNode dataNode, String field) {
+    private static Long getLong(JsonNode dataNode, String field) {
         JsonNode node = dataNode.get(field);
         if (node == null || node.isNull()) {
             return null;
@@ -195,44 +316,70 @@ public class NotificationService {
         return null;
     }
 
-    @SafeVarargs
-    private static <T> T firstNonNull(T... values) {
-        for (T value : values) {
-            if (value != null) {
-                return value;
-            }
-        }
-        return null;
-    }
-
     /**
-     * Get unread notifications for a user.
+     * Get unread notifications for a user (newest first, at most
+     * {@value #MAX_PAGE_SIZE}).
      */
     @Transactional(readOnly = true)
-    public List<NotificationResponse> getUnreadNotifications(Long userId) {
-        return notificationRepository.findUnreadByUserId(userId)
+    public List<NotificationResponse> getUnreadNotifications(Long userId, int limit) {
+        return notificationRepository.findUnreadByUserId(userId, PageRequest.of(0, clampLimit(limit)))
                 .stream()
                 .map(NotificationResponse::new)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get recent notifications (up to 50) for a user.
+     * Get recent notifications for a user (at most {@value #MAX_PAGE_SIZE}).
      */
     @Transactional(readOnly = true)
     public List<NotificationResponse> getRecentNotifications(Long userId, int limit) {
-        return notificationRepository.findRecentByUserId(userId, PageRequest.of(0, limit))
+        return notificationRepository.findRecentByUserId(userId, PageRequest.of(0, clampLimit(limit)))
                 .stream()
                 .map(NotificationResponse::new)
                 .collect(Collectors.toList());
     }
 
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
     /**
-     * Count unread notifications for badge display.
+     * Count unread notifications for badge display. Served from
+     * {@link UnreadCountStore}; the database is only hit to seed the counter.
      */
-    @Transactional(readOnly = true)
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countUnreadByUserId(userId);
+        return unreadCountStore.get(userId, () -> notificationRepository.countUnreadByUserId(userId));
+    }
+
+    /**
+     * Apply a counter update once the current transaction commits (right away
+     * without one), then push the new badge value to the user's live sockets
+     * as an UNREAD_COUNT event.
+     */
+    private void onUnreadChanged(Long userId, Runnable counterUpdate) {
+        Runnable apply = () -> {
+            counterUpdate.run();
+            if (presenceStore.getConnectionCount(userId) > 0) {
+                messagingTemplate.convertAndSendToUser(
+                        String.valueOf(userId),
+                        "/queue/notifications",
+                        java.util.Map.of(
+                                "type", "UNREAD_COUNT",
+                                "count", getUnreadCount(userId)));
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+            return;
+        }
+
+        apply.run();
     }
 
     /**
@@ -248,8 +395,13 @@ public class NotificationService {
             throw new AccessDeniedException("Cannot access other user's notifications");
         }
 
+        if (notification.isRead()) {
+            return;
+        }
+
         notification.setRead(true);
         notificationRepository.save(notification);
+        onUnreadChanged(userId, () -> unreadCountStore.adjust(userId, -1));
     }
 
     /**
@@ -257,11 +409,10 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unread = notificationRepository.findUnreadByUserId(userId);
-        for (Notification n : unread) {
-            n.setRead(true);
+        int updated = notificationRepository.markAllReadByUserId(userId);
+        if (updated > 0) {
+            onUnreadChanged(userId, () -> unreadCountStore.reset(userId));
         }
-        notificationRepository.saveAll(unread);
     }
 
     /**
@@ -277,31 +428,32 @@ public class NotificationService {
                 String.valueOf(userId),
                 "/queue/notifications",
                 java.util.Map.of("type", "NOTIFICATIONS_CLEARED"));
+        onUnreadChanged(userId, () -> unreadCountStore.reset(userId));
     }
 
     /**
      * Mark all chat notifications from a specific sender as read.
+     * One bulk UPDATE; after commit the client gets a single
+     * CHAT_NOTIFICATIONS_READ frame for the sender plus the new unread count.
      */
     @Transactional
     public void markChatNotificationsAsRead(Long userId, Long senderId) {
-        String payloadPattern = "\"senderId\":" + senderId;
-        List<Notification> unread = notificationRepository.findUnreadChatNotificationsBySender(userId, payloadPattern);
+        // Next message from this sender starts a fresh notification row
+        chatCoalescer.endThread(userId, senderId);
 
-        if (unread.isEmpty()) {
+        int updated = notificationRepository.markChatReadBySender(userId, senderId);
+        if (updated == 0) {
             return;
         }
 
-        for (Notification n : unread) {
-            n.setRead(true);
-
-            // Broadcast READ event
+        onUnreadChanged(userId, () -> {
+            unreadCountStore.adjust(userId, -updated);
             messagingTemplate.convertAndSendToUser(
                     String.valueOf(userId),
                     "/queue/notifications",
                     java.util.Map.of(
-                            "type", "NOTIFICATION_READ",
-                            "id", n.getId()));
-        }
-        notificationRepository.saveAll(unread);
+                            "type", "CHAT_NOTIFICATIONS_READ",
+                            "senderId", senderId));
+        });
     }
 }
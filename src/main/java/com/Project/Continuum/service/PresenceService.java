@@ -2,62 +2,70 @@ package com.Project.Continuum.service;
 
 import com.Project.Continuum.dto.presence.PresenceResponse;
 import com.Project.Continuum.enums.PresenceStatus;
-import com.Project.Continuum.entity.User;
+import com.Project.Continuum.exception.BadRequestException;
 import com.Project.Continuum.exception.ResourceNotFoundException;
 import com.Project.Continuum.repository.UserRepository;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import com.Project.Continuum.security.AuthPrincipal;
+import com.Project.Continuum.security.AuthPrincipalCache;
+import com.Project.Continuum.store.PresenceFanout;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.Instant;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Presence reads and writes go through PresenceStore. Changes reach the
+ * users table via the write-behind flush (PresenceFlushScheduler), so
+ * connect / disconnect / heartbeat do no DB writes on the request path.
+ * Broadcasts go through PresenceFanout, which debounces them per user.
+ */
 @Service
 public class PresenceService {
 
+    public static final int MAX_BULK_USERS = 500;
+
     private final UserRepository userRepository;
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceFanout presenceFanout;
     private final com.Project.Continuum.store.PresenceStore presenceStore;
+    private final AuthPrincipalCache authPrincipalCache;
     private final Clock clock;
 
     public PresenceService(UserRepository userRepository,
-            SimpMessageSendingOperations messagingTemplate,
+            PresenceFanout presenceFanout,
             com.Project.Continuum.store.PresenceStore presenceStore,
+            AuthPrincipalCache authPrincipalCache,
             Clock clock) {
         this.userRepository = userRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.presenceFanout = presenceFanout;
         this.presenceStore = presenceStore;
+        this.authPrincipalCache = authPrincipalCache;
         this.clock = clock;
     }
 
-    @Transactional
     public PresenceResponse updatePresence(Long userId, PresenceStatus status) {
 
-        User user = userRepository.findById(userId)
-                .filter(User::isActive)
-                .orElseThrow(() -> new ResourceNotFoundException("Active user not found"));
+        requireActiveUser(userId);
 
-        // Update Store
+        // Update Store (persisted by the write-behind flush)
         presenceStore.setUserStatus(userId, status);
 
-        // Update DB
-        user.setPresenceStatus(status);
-        if (status == PresenceStatus.OFFLINE) {
-            user.setLastSeenAt(Instant.now(clock));
-        }
-
-        PresenceResponse response = new PresenceResponse(user.getId(), status, user.getLastSeenAt());
-        messagingTemplate.convertAndSend("/topic/presence/" + userId, response);
+        PresenceResponse response = new PresenceResponse(userId, status, presenceStore.getLastSeen(userId));
+        presenceFanout.publish(userId, response.getStatus(), response.getLastSeenAt());
 
         return response;
     }
 
-    @Transactional(readOnly = true)
     public PresenceResponse getPresence(Long userId) {
 
-        User user = userRepository.findById(userId)
-                .filter(User::isActive)
-                .orElseThrow(() -> new ResourceNotFoundException("Active user not found"));
+        requireActiveUser(userId);
 
         // Check Store first for real-time status
         PresenceStatus liveStatus = presenceStore.getStatus(userId);
@@ -68,10 +76,65 @@ public class PresenceService {
 
         Instant lastSeenObj = presenceStore.getLastSeen(userId);
         if (lastSeenObj == null) {
-            lastSeenObj = user.getLastSeenAt();
+            lastSeenObj = userRepository.findLastSeenOfActiveUsers(List.of(userId)).stream()
+                    .map(row -> (Instant) row[1])
+                    .findFirst()
+                    .orElse(null);
         }
 
-        return new PresenceResponse(user.getId(), liveStatus, lastSeenObj);
+        return new PresenceResponse(userId, liveStatus, lastSeenObj);
+    }
+
+    /**
+     * Presence for many users at once (max {@value #MAX_BULK_USERS}), in
+     * request order with duplicates dropped.
+     * 
+     * Users in PresenceStore are answered from memory after the same
+     * AuthPrincipalCache active check as getPresence(). The rest get their
+     * lastSeenAt from one IN query; unknown or inactive users are left out.
+     */
+    public List<PresenceResponse> getPresences(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        if (ids.size() > MAX_BULK_USERS) {
+            throw new BadRequestException("At most " + MAX_BULK_USERS + " users per presence request");
+        }
+
+        Map<Long, Instant> lastSeenFromStore = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Instant lastSeen = presenceStore.getLastSeen(id);
+            if (lastSeen != null) {
+                // Same active-user check as getPresence(); store hits are
+                // recently connected users, so the principal is usually cached
+                if (isActiveUser(id)) {
+                    lastSeenFromStore.put(id, lastSeen);
+                }
+            } else {
+                missing.add(id);
+            }
+        }
+
+        Map<Long, Instant> lastSeenFromDb = new HashMap<>();
+        if (!missing.isEmpty()) {
+            for (Object[] row : userRepository.findLastSeenOfActiveUsers(missing)) {
+                lastSeenFromDb.put((Long) row[0], (Instant) row[1]);
+            }
+        }
+
+        List<PresenceResponse> responses = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (lastSeenFromStore.containsKey(id)) {
+                responses.add(new PresenceResponse(id, presenceStore.getStatus(id), lastSeenFromStore.get(id)));
+            } else if (lastSeenFromDb.containsKey(id)) {
+                responses.add(new PresenceResponse(id, PresenceStatus.OFFLINE, lastSeenFromDb.get(id)));
+            }
+        }
+        return responses;
     }
 
     @Transactional
@@ -79,26 +142,32 @@ public class PresenceService {
         presenceStore.setUserSession(userId, sessionId);
     }
 
-    @Transactional
     public void heartbeat(Long userId) {
 
-        User user = userRepository.findById(userId)
-                .filter(User::isActive)
-                .orElseThrow(() -> new ResourceNotFoundException("Active user not found"));
+        requireActiveUser(userId);
 
-        // Update Store
+        // Update Store (persisted by the write-behind flush)
         presenceStore.updateLastSeen(userId);
 
         // Check if status needs correction in Store
         if (presenceStore.getStatus(userId) == PresenceStatus.OFFLINE) {
             presenceStore.setUserStatus(userId, PresenceStatus.ONLINE);
-            user.setPresenceStatus(PresenceStatus.ONLINE);
 
-            PresenceResponse response = new PresenceResponse(user.getId(), PresenceStatus.ONLINE, Instant.now(clock));
-            messagingTemplate.convertAndSend("/topic/presence/" + userId, response);
+            presenceFanout.publish(userId, PresenceStatus.ONLINE, Instant.now(clock));
         }
+    }
+
+    // Served by the auth principal cache - no users row read per heartbeat
+    private void requireActiveUser(Long userId) {
+        if (!isActiveUser(userId)) {
+            throw new ResourceNotFoundException("Active user not found");
+        }
+    }
 
-        user.setLastSeenAt(Instant.now(clock));
+    private boolean isActiveUser(Long userId) {
+        return authPrincipalCache.get(userId)
+                .filter(AuthPrincipal::active)
+                .isPresent();
     }
 
 }
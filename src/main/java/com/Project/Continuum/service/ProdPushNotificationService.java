@@ -1,13 +1,9 @@
 package com.Project.Continuum.service;
 
 import com.Project.Continuum.entity.PushSubscription;
+import com.Project.Continuum.push.WebPushDeliveryEngine;
 import com.Project.Continuum.repository.PushSubscriptionRepository;
-import nl.martijndwars.webpush.Encoding;
-import nl.martijndwars.webpush.Notification;
 import nl.martijndwars.webpush.PushService;
-import org.apache.http.HttpResponse;
-import org.apache.http.HttpEntity;
-import org.apache.http.util.EntityUtils;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,15 +15,14 @@ import org.springframework.util.StringUtils;
 
 import jakarta.annotation.PostConstruct;
 import java.security.Security;
-import java.time.Instant;
 import java.util.List;
 import java.util.Base64;
-import java.nio.charset.StandardCharsets;
 
 /**
  * ProdPushNotificationService - Real implementation for PROD.
  * 
- * Uses the webpush-java library for encryption and delivery.
+ * Uses the webpush-java library for VAPID signing and encryption; HTTP
+ * delivery goes through the pooled {@link WebPushDeliveryEngine}.
  * Requires VAPID keys to be present.
  */
 @Service
@@ -37,6 +32,7 @@ public class ProdPushNotificationService implements PushNotificationService {
     private static final Logger log = LoggerFactory.getLogger(ProdPushNotificationService.class);
 
     private final PushSubscriptionRepository subscriptionRepository;
+    private final WebPushDeliveryEngine deliveryEngine;
 
     @Value("${push.vapid.public-key:#{null}}")
     private String vapidPublicKey;
@@ -49,8 +45,10 @@ public class ProdPushNotificationService implements PushNotificationService {
 
     private PushService pushService;
 
-    public ProdPushNotificationService(PushSubscriptionRepository subscriptionRepository) {
+    public ProdPushNotificationService(PushSubscriptionRepository subscriptionRepository,
+            WebPushDeliveryEngine deliveryEngine) {
         this.subscriptionRepository = subscriptionRepository;
+        this.deliveryEngine = deliveryEngine;
     }
 
     @PostConstruct
@@ -123,7 +121,7 @@ public class ProdPushNotificationService implements PushNotificationService {
     }
 
     @Override
-    public void sendToUser(Long userId, String title, String body, String data) {
+    public void sendToUser(Long userId, String title, String body, String data, String topic) {
         List<PushSubscription> subscriptions = subscriptionRepository.findByUserId(userId);
 
         if (subscriptions.isEmpty()) {
@@ -131,96 +129,13 @@ public class ProdPushNotificationService implements PushNotificationService {
             return;
         }
 
-        log.info("Attempting push delivery to user {} across {} subscription(s)", userId, subscriptions.size());
-        String payload = buildPayload(title, body, data);
-
-        for (PushSubscription sub : subscriptions) {
-            sendPush(sub, payload);
-        }
-    }
-
-    private void sendPush(PushSubscription sub, String payload) {
         if (pushService == null) {
             log.warn("PushService not initialized");
             return;
         }
 
-        try {
-            Notification notification = new Notification(
-                    sub.getEndpoint(),
-                    sub.getP256dh(),
-                    sub.getAuth(),
-                    payload.getBytes(StandardCharsets.UTF_8));
-
-            HttpResponse response = pushService.send(notification, Encoding.AES128GCM);
-            int statusCode = response != null && response.getStatusLine() != null
-                    ? response.getStatusLine().getStatusCode()
-                    : -1;
-            String reason = response != null && response.getStatusLine() != null
-                    ? response.getStatusLine().getReasonPhrase()
-                    : "unknown";
-
-            if (statusCode >= 200 && statusCode < 300) {
-                sub.setLastUsedAt(Instant.now());
-                subscriptionRepository.save(sub);
-                log.info("Push accepted for user {} endpoint {} (status={} {})",
-                        sub.getUserId(),
-                        sub.getEndpoint().substring(0, Math.min(50, sub.getEndpoint().length())),
-                        statusCode,
-                        reason);
-                return;
-            }
-
-            String responseBody = extractResponseBody(response);
-            log.warn("Push rejected for endpoint {} (status={} {}, body={})",
-                    sub.getEndpoint().substring(0, Math.min(50, sub.getEndpoint().length())),
-                    statusCode,
-                    reason,
-                    responseBody);
-
-            if (isStaleStatusCode(statusCode)) {
-                log.info("Removing stale subscription for user {}", sub.getUserId());
-                subscriptionRepository.delete(sub);
-            }
-
-        } catch (Exception e) {
-            log.warn("Push failed for endpoint {}: {}",
-                    sub.getEndpoint().substring(0, Math.min(50, sub.getEndpoint().length())),
-                    e.getMessage());
-
-            String msg = e.getMessage() != null ? e.getMessage() : "";
-            boolean staleSubscription =
-                    msg.contains("410") || msg.contains("404")
-                            || msg.toLowerCase().contains("gone") || msg.toLowerCase().contains("unsub");
-            if (staleSubscription) {
-                log.info("Removing expired subscription for user {}", sub.getUserId());
-                subscriptionRepository.delete(sub);
-            }
-        }
-    }
-
-    private static boolean isStaleStatusCode(int statusCode) {
-        return statusCode == 404 || statusCode == 410;
-    }
-
-    private static String extractResponseBody(HttpResponse response) {
-        if (response == null) {
-            return "";
-        }
-        HttpEntity entity = response.getEntity();
-        if (entity == null) {
-            return "";
-        }
-        try {
-            String body = EntityUtils.toString(entity, StandardCharsets.UTF_8);
-            if (body == null) {
-                return "";
-            }
-            String trimmed = body.replaceAll("\\s+", " ").trim();
-            return trimmed.length() > 300 ? trimmed.substring(0, 300) + "..." : trimmed;
-        } catch (Exception ignored) {
-            return "";
-        }
+        log.info("Attempting push delivery to user {} across {} subscription(s)", userId, subscriptions.size());
+        deliveryEngine.deliver(pushService, subscriptions, buildPayload(title, body, data), topic);
     }
 
     private String buildPayload(String title, String body, String data) {
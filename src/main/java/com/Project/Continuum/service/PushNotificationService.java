@@ -9,5 +9,13 @@ public interface PushNotificationService {
 
     String getPublicKey();
 
-    void sendToUser(Long userId, String title, String body, String data);
+    default void sendToUser(Long userId, String title, String body, String data) {
+        sendToUser(userId, title, body, data, null);
+    }
+
+    /**
+     * @param topic optional Web Push Topic; a newer push with the same topic
+     *              replaces an undelivered older one at the push service
+     */
+    void sendToUser(Long userId, String title, String body, String data, String topic);
 }
@@ -15,6 +15,9 @@ import com.Project.Continuum.repository.SkillExchangeRequestRepository;
 import com.Project.Continuum.repository.UserProfileRepository;
 import com.Project.Continuum.repository.UserRepository;
 import com.Project.Continuum.repository.UserSkillRepository;
+import com.Project.Continuum.security.AuthPrincipalCache;
+import com.Project.Continuum.store.FriendGraph;
+import com.Project.Continuum.store.SkillMatchIndex;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,6 +37,9 @@ public class UserService {
     private final ChatMessageRepository chatMessageRepository;
     private final NotificationRepository notificationRepository;
     private final PushSubscriptionRepository pushSubscriptionRepository;
+    private final SkillMatchIndex skillMatchIndex;
+    private final AuthPrincipalCache authPrincipalCache;
+    private final FriendGraph friendGraph;
 
     public UserService(
             UserRepository userRepository,
@@ -45,7 +51,10 @@ public class UserService {
             FriendRepository friendRepository,
             ChatMessageRepository chatMessageRepository,
             NotificationRepository notificationRepository,
-            PushSubscriptionRepository pushSubscriptionRepository) {
+            PushSubscriptionRepository pushSubscriptionRepository,
+            SkillMatchIndex skillMatchIndex,
+            AuthPrincipalCache authPrincipalCache,
+            FriendGraph friendGraph) {
         this.userRepository = userRepository;
         this.userProfileRepository = userProfileRepository;
         this.userSkillRepository = userSkillRepository;
@@ -56,6 +65,9 @@ public class UserService {
         this.chatMessageRepository = chatMessageRepository;
         this.notificationRepository = notificationRepository;
         this.pushSubscriptionRepository = pushSubscriptionRepository;
+        this.skillMatchIndex = skillMatchIndex;
+        this.authPrincipalCache = authPrincipalCache;
+        this.friendGraph = friendGraph;
     }
 
     public UserResponse getUser(Long userId) {
@@ -90,6 +102,7 @@ public class UserService {
         user.setPresenceStatus(PresenceStatus.OFFLINE);
         user.setLastSeenAt(Instant.now());
         userRepository.save(user);
+        authPrincipalCache.invalidate(userId);
     }
 
     @Transactional
@@ -103,6 +116,7 @@ public class UserService {
         user.setPresenceStatus(PresenceStatus.OFFLINE);
         user.setLastSeenAt(Instant.now());
         userRepository.save(user);
+        authPrincipalCache.invalidate(userId);
     }
 
     @Transactional
@@ -119,13 +133,16 @@ public class UserService {
         callSessionRepository.deleteByCaller_IdOrReceiver_Id(userId, userId);
         exchangeSessionRepository.deleteByUserA_IdOrUserB_Id(userId, userId);
         exchangeRequestRepository.deleteBySender_IdOrReceiver_Id(userId, userId);
+        friendGraph.removeUser(userId);
         friendRepository.deleteByUser1_IdOrUser2_Id(userId, userId);
         notificationRepository.deleteAllByUserId(userId);
         pushSubscriptionRepository.deleteByUserId(userId);
         userProfileRepository.deleteByUser_Id(userId);
         userSkillRepository.deleteByUser_Id(userId);
+        skillMatchIndex.removeUser(userId);
 
         userRepository.delete(user);
+        authPrincipalCache.invalidate(userId);
     }
 
     private UserResponse mapToResponse(User user) {
@@ -11,6 +11,7 @@ import com.Project.Continuum.exception.ResourceNotFoundException;
 import com.Project.Continuum.repository.SkillRepository;
 import com.Project.Continuum.repository.UserRepository;
 import com.Project.Continuum.repository.UserSkillRepository;
+import com.Project.Continuum.store.SkillMatchIndex;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,14 +24,17 @@ public class UserSkillService {
         private final UserRepository userRepository;
         private final SkillRepository skillRepository;
         private final UserSkillRepository userSkillRepository;
+        private final SkillMatchIndex skillMatchIndex;
 
         public UserSkillService(
                         UserRepository userRepository,
                         SkillRepository skillRepository,
-                        UserSkillRepository userSkillRepository) {
+                        UserSkillRepository userSkillRepository,
+                        SkillMatchIndex skillMatchIndex) {
                 this.userRepository = userRepository;
                 this.skillRepository = skillRepository;
                 this.userSkillRepository = userSkillRepository;
+                this.skillMatchIndex = skillMatchIndex;
         }
 
         // ---------------- ADD SKILL ----------------
@@ -58,7 +62,10 @@ public class UserSkillService {
                 userSkill.setLevel(request.getLevel());
                 userSkill.setSkillType(request.getSkillType());
 
-                return mapToResponse(userSkillRepository.save(userSkill));
+                UserSkill saved = userSkillRepository.save(userSkill);
+                skillMatchIndex.addSkill(userId, skill.getId(), saved.getSkillType());
+
+                return mapToResponse(saved);
         }
 
         // ---------------- GET USER SKILLS ----------------
@@ -106,7 +113,9 @@ public class UserSkillService {
                                                                 "User already has this skill with the given type");
                                         });
 
+                        skillMatchIndex.removeSkill(userId, userSkill.getSkill().getId(), userSkill.getSkillType());
                         userSkill.setSkillType(request.getSkillType());
+                        skillMatchIndex.addSkill(userId, userSkill.getSkill().getId(), request.getSkillType());
                 }
 
                 return mapToResponse(userSkillRepository.save(userSkill));
@@ -124,6 +133,7 @@ public class UserSkillService {
                 }
 
                 userSkillRepository.delete(userSkill);
+                skillMatchIndex.removeSkill(userId, userSkill.getSkill().getId(), userSkill.getSkillType());
         }
 
         // ---------------- MAPPER ----------------
@@ -0,0 +1,224 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.enums.FriendStatus;
+import com.Project.Continuum.repository.FriendRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-Memory Friendship Graph shared by chat, calls and matching.
+ * 
+ * Holds each user's adjacency as sorted primitive long arrays, split by
+ * friendship status (ACCEPTED / PENDING / REJECTED), so "are these two
+ * friends" is a memory lookup instead of a query.
+ * 
+ * - Loaded lazily per user with one projection query
+ * - Kept coherent by FriendService (send / accept / reject / remove) and
+ * user deletion: both endpoints are evicted immediately and again after the
+ * transaction completes, and a load that raced an eviction is not cached
+ * - Entries are soft references, so the GC drops them under memory pressure
+ * and the next lookup reloads from the DB
+ */
+@Component
+public class FriendGraph {
+
+    private final FriendRepository friendRepository;
+
+    private final Map<Long, AdjacencyRef> cache = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Adjacency> collected = new ReferenceQueue<>();
+
+    // Bumped on every eviction; a load only caches if no eviction happened meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    public FriendGraph(FriendRepository friendRepository) {
+        this.friendRepository = friendRepository;
+    }
+
+    // ==================== LOOKUPS ====================
+
+    /**
+     * ACCEPTED friendship between the two users.
+     */
+    public boolean areFriends(Long userId, Long otherUserId) {
+        return contains(adjacency(userId).accepted(), otherUserId);
+    }
+
+    /**
+     * Friend request pending between the two users (either direction).
+     */
+    public boolean isPending(Long userId, Long otherUserId) {
+        return contains(adjacency(userId).pending(), otherUserId);
+    }
+
+    /**
+     * Any friendship row between the two users, whatever its status.
+     * Used by matching to skip people who already know each other.
+     */
+    public boolean isConnected(Long userId, Long otherUserId) {
+        Adjacency adjacency = adjacency(userId);
+        return contains(adjacency.accepted(), otherUserId)
+                || contains(adjacency.pending(), otherUserId)
+                || contains(adjacency.rejected(), otherUserId);
+    }
+
+    /**
+     * IDs of everyone the user has a friendship row with, whatever its
+     * status (sorted snapshot). Lets callers resolve the adjacency once and
+     * then test isConnected-style membership with no further loads.
+     */
+    public long[] connectedIds(Long userId) {
+        Adjacency adjacency = adjacency(userId);
+        long[] ids = new long[adjacency.accepted().length + adjacency.pending().length
+                + adjacency.rejected().length];
+        int size = 0;
+        for (long[] part : List.of(adjacency.accepted(), adjacency.pending(), adjacency.rejected())) {
+            System.arraycopy(part, 0, ids, size, part.length);
+            size += part.length;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * IDs of the user's ACCEPTED friends (sorted, do not modify).
+     */
+    public long[] friendIds(Long userId) {
+        return adjacency(userId).accepted();
+    }
+
+    // ==================== COHERENCE ====================
+
+    /**
+     * Drop the cached adjacency of the given users, now and once the current
+     * transaction completes.
+     */
+    public void invalidate(Long... userIds) {
+        evict(userIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userIds);
+                }
+            });
+        }
+    }
+
+    /**
+     * Call before a user's friendship rows are deleted: evicts the user and
+     * everyone they are connected to.
+     */
+    public void removeUser(Long userId) {
+        Adjacency adjacency = adjacency(userId);
+        invalidate(userId);
+        for (long[] ids : List.of(adjacency.accepted(), adjacency.pending(), adjacency.rejected())) {
+            for (long id : ids) {
+                invalidate(id);
+            }
+        }
+    }
+
+    public int getCachedUserCount() {
+        return cache.size();
+    }
+
+    // ==================== INTERNAL ====================
+
+    private Adjacency adjacency(Long userId) {
+        purgeCollected();
+
+        AdjacencyRef ref = cache.get(userId);
+        Adjacency adjacency = ref != null ? ref.get() : null;
+        if (adjacency != null) {
+            return adjacency;
+        }
+
+        long loadedAt = generation.get();
+        adjacency = load(userId);
+        if (generation.get() == loadedAt) {
+            cache.put(userId, new AdjacencyRef(userId, adjacency, collected));
+        }
+        return adjacency;
+    }
+
+    private Adjacency load(Long userId) {
+        long[] accepted = new long[8];
+        long[] pending = new long[8];
+        long[] rejected = new long[8];
+        int acceptedCount = 0, pendingCount = 0, rejectedCount = 0;
+
+        for (Object[] row : friendRepository.findEdgesOfUser(userId)) {
+            long otherId = (Long) row[0];
+            FriendStatus status = (FriendStatus) row[1];
+            switch (status) {
+                case ACCEPTED -> {
+                    accepted = ensureCapacity(accepted, acceptedCount);
+                    accepted[acceptedCount++] = otherId;
+                }
+                case PENDING -> {
+                    pending = ensureCapacity(pending, pendingCount);
+                    pending[pendingCount++] = otherId;
+                }
+                default -> {
+                    rejected = ensureCapacity(rejected, rejectedCount);
+                    rejected[rejectedCount++] = otherId;
+                }
+            }
+        }
+
+        return new Adjacency(
+                sorted(accepted, acceptedCount),
+                sorted(pending, pendingCount),
+                sorted(rejected, rejectedCount));
+    }
+
+    private void evict(Long... userIds) {
+        generation.incrementAndGet();
+        for (Long userId : userIds) {
+            cache.remove(userId);
+        }
+    }
+
+    private void purgeCollected() {
+        AdjacencyRef ref;
+        while ((ref = (AdjacencyRef) collected.poll()) != null) {
+            cache.remove(ref.userId, ref);
+        }
+    }
+
+    private static boolean contains(long[] sortedIds, Long id) {
+        return id != null && Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    private static long[] ensureCapacity(long[] ids, int size) {
+        return size < ids.length ? ids : Arrays.copyOf(ids, ids.length * 2);
+    }
+
+    private static long[] sorted(long[] ids, int size) {
+        long[] result = Arrays.copyOf(ids, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private record Adjacency(long[] accepted, long[] pending, long[] rejected) {
+    }
+
+    private static final class AdjacencyRef extends SoftReference<Adjacency> {
+        private final Long userId;
+
+        private AdjacencyRef(Long userId, Adjacency adjacency, ReferenceQueue<Adjacency> queue) {
+            super(adjacency, queue);
+            this.userId = userId;
+        }
+    }
+}
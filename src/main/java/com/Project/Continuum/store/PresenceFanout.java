@@ -0,0 +1,170 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.dto.presence.PresenceResponse;
+import com.Project.Continuum.enums.PresenceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Presence fan-out stage: debounced, friend-scoped delta broadcasts.
+ *
+ * - publish() only records the user's latest presence; bursts within one
+ * tick collapse to the final state
+ * - No-op transitions (same status as last published, e.g. ONLINE to
+ * ONLINE on a second tab) are dropped
+ * - Every tick, each connected friend of a changed user receives ONE
+ * PRESENCE_DELTA frame on /user/queue/presence listing all changes,
+ * so a connection gets at most one presence frame per tick
+ * - /topic/presence/{userId} still gets the final state once per tick for
+ * non-friend watchers (chat partners, recently met)
+ *
+ * Counters are exposed for frame-rate monitoring (getStats(), served at
+ * /api/admin/presence/fanout).
+ */
+@Component
+public class PresenceFanout {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceFanout.class);
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final PresenceStore presenceStore;
+    private final FriendGraph friendGraph;
+
+    // userId -> latest unpublished presence
+    private final Map<Long, PresenceResponse> pending = new ConcurrentHashMap<>();
+
+    // userId -> last published status; absent = OFFLINE
+    private final Map<Long, PresenceStatus> published = new ConcurrentHashMap<>();
+
+    private final LongAdder deltasPublished = new LongAdder();
+    private final LongAdder transitionsSuppressed = new LongAdder();
+    private final LongAdder deltaFramesSent = new LongAdder();
+    private final LongAdder topicFramesSent = new LongAdder();
+    private final LongAdder ticksPublished = new LongAdder();
+    private final LongAccumulator maxRecipientsPerTick = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxChangesPerFrame = new LongAccumulator(Math::max, 0);
+
+    public PresenceFanout(
+            SimpMessageSendingOperations messagingTemplate,
+            PresenceStore presenceStore,
+            FriendGraph friendGraph) {
+        this.messagingTemplate = messagingTemplate;
+        this.presenceStore = presenceStore;
+        this.friendGraph = friendGraph;
+    }
+
+    /**
+     * Queue the user's presence for the next tick. Later calls in the same
+     * tick replace earlier ones.
+     */
+    public void publish(Long userId, PresenceStatus status, Instant lastSeenAt) {
+        pending.put(userId, new PresenceResponse(userId, status, lastSeenAt));
+    }
+
+    @Scheduled(fixedDelayString = "${presence.fanout.interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 1️⃣ Drain and drop no-op transitions
+        List<PresenceResponse> deltas = new ArrayList<>();
+        for (Long userId : List.copyOf(pending.keySet())) {
+            PresenceResponse latest = pending.remove(userId);
+            if (latest == null) {
+                continue;
+            }
+            PresenceStatus previous = published.getOrDefault(userId, PresenceStatus.OFFLINE);
+            if (previous == latest.getStatus()) {
+                transitionsSuppressed.increment();
+                continue;
+            }
+            if (latest.getStatus() == PresenceStatus.OFFLINE) {
+                published.remove(userId);
+            } else {
+                published.put(userId, latest.getStatus());
+            }
+            deltas.add(latest);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        deltasPublished.add(deltas.size());
+        ticksPublished.increment();
+
+        // 2️⃣ Group by connected friend: one frame per recipient per tick
+        Map<Long, List<PresenceResponse>> byRecipient = new HashMap<>();
+        for (PresenceResponse delta : deltas) {
+            try {
+                for (long friendId : friendGraph.friendIds(delta.getUserId())) {
+                    if (presenceStore.getConnectionCount(friendId) > 0) {
+                        byRecipient.computeIfAbsent(friendId, id -> new ArrayList<>()).add(delta);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Presence fan-out: could not resolve friends of user {}: {}",
+                        delta.getUserId(), e.getMessage());
+            }
+        }
+
+        maxRecipientsPerTick.accumulate(byRecipient.size());
+        byRecipient.forEach((recipientId, changes) -> {
+            messagingTemplate.convertAndSendToUser(
+                    String.valueOf(recipientId),
+                    "/queue/presence",
+                    Map.of("type", "PRESENCE_DELTA", "presences", changes));
+            deltaFramesSent.increment();
+            maxChangesPerFrame.accumulate(changes.size());
+        });
+
+        // 3️⃣ Per-user topic for non-friend watchers
+        for (PresenceResponse delta : deltas) {
+            messagingTemplate.convertAndSend("/topic/presence/" + delta.getUserId(), delta);
+            topicFramesSent.increment();
+        }
+    }
+
+    public long getDeltasPublished() {
+        return deltasPublished.sum();
+    }
+
+    public long getTransitionsSuppressed() {
+        return transitionsSuppressed.sum();
+    }
+
+    public long getDeltaFramesSent() {
+        return deltaFramesSent.sum();
+    }
+
+    public long getTopicFramesSent() {
+        return topicFramesSent.sum();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public PresenceFanoutStats getStats() {
+        return new PresenceFanoutStats(
+                ticksPublished.sum(),
+                deltasPublished.sum(),
+                transitionsSuppressed.sum(),
+                deltaFramesSent.sum(),
+                topicFramesSent.sum(),
+                maxRecipientsPerTick.get(),
+                maxChangesPerFrame.get(),
+                pending.size());
+    }
+}
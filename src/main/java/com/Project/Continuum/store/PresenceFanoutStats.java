@@ -0,0 +1,21 @@
+package com.Project.Continuum.store;
+
+/**
+ * Cumulative presence fan-out counters from PresenceFanout.
+ *
+ * deltaFramesSent / ticksPublished is the average number of recipients per
+ * tick; each recipient gets at most one /user/queue/presence frame per tick.
+ * maxRecipientsPerTick and maxChangesPerFrame are high-water marks since
+ * startup. topicFramesSent counts /topic/presence/{userId} broadcasts, one
+ * per changed user per tick regardless of how many sessions subscribe.
+ */
+public record PresenceFanoutStats(
+        long ticksPublished,
+        long deltasPublished,
+        long transitionsSuppressed,
+        long deltaFramesSent,
+        long topicFramesSent,
+        long maxRecipientsPerTick,
+        long maxChangesPerFrame,
+        int pendingCount) {
+}
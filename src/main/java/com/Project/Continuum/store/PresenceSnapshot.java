@@ -0,0 +1,12 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.enums.PresenceStatus;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time copy of a user's presence, as handed to the write-behind
+ * flush.
+ */
+public record PresenceSnapshot(Long userId, PresenceStatus status, Instant lastSeenAt) {
+}
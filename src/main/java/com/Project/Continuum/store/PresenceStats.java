@@ -0,0 +1,19 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.enums.PresenceStatus;
+
+import java.util.Map;
+
+/**
+ * Point-in-time presence counters from PresenceStore.
+ *
+ * onlineUsers counts users that are not OFFLINE and hold at least one
+ * WebSocket connection; usersByStatus covers every tracked user.
+ */
+public record PresenceStats(
+        long onlineUsers,
+        long connectedUsers,
+        long openConnections,
+        long trackedUsers,
+        Map<PresenceStatus, Long> usersByStatus) {
+}
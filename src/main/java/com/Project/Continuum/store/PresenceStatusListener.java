@@ -0,0 +1,18 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.enums.PresenceStatus;
+
+/**
+ * Callback for components that mirror presence in their own in-memory
+ * structures. Invoked by {@link PresenceStore} after a status transition has
+ * been applied, outside of the map's compute lock.
+ *
+ * Concurrent transitions of the same user may be delivered out of order, so
+ * implementations should re-read {@link PresenceStore#getStatus} rather than
+ * trust {@code current}.
+ */
+@FunctionalInterface
+public interface PresenceStatusListener {
+
+    void onStatusChange(Long userId, PresenceStatus previous, PresenceStatus current);
+}
@@ -8,9 +8,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 
 /**
  * In-Memory Source of Truth for Real-Time Presence.
@@ -19,6 +30,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  * - Connection counting for multi-tab support
  * - Thread-safe operations via ConcurrentHashMap
  * - Automatic status transitions (ONLINE/BUSY/OFFLINE)
+ * - Status transition listeners for derived in-memory indexes
+ * - Write-behind: every change marks the user dirty; PresenceFlushScheduler
+ * drains the dirty set and persists it to users in batches
+ * - Idle index: users that are not OFFLINE but have no open connection,
+ * ordered by lastSeenAt, so the stale sweep only visits expired entries
+ * - Counters: users per status, connected users and open connections are
+ * kept in LongAdders updated with every entry change, so getStats() is O(1)
  * 
  * Key: Only sets OFFLINE when last WebSocket connection closes.
  */
@@ -28,11 +46,29 @@ public class PresenceStore {
     private static final Logger log = LoggerFactory.getLogger(PresenceStore.class);
 
     private final Map<Long, UserPresenceData> store = new ConcurrentHashMap<>();
+    private final List<PresenceStatusListener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final ConcurrentSkipListSet<IdleKey> idleIndex = new ConcurrentSkipListSet<>(
+            Comparator.comparing(IdleKey::lastSeenAt).thenComparing(IdleKey::userId));
+    private final Map<PresenceStatus, LongAdder> usersByStatus = new EnumMap<>(PresenceStatus.class);
+    private final LongAdder onlineUsers = new LongAdder(); // not OFFLINE and connected
+    private final LongAdder connectedUsers = new LongAdder();
+    private final LongAdder openConnections = new LongAdder();
     private final Clock clock;
 
     @Autowired
     public PresenceStore(Clock clock) {
         this.clock = clock;
+        for (PresenceStatus status : PresenceStatus.values()) {
+            usersByStatus.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Register a listener notified on every effective status transition.
+     */
+    public void addStatusListener(PresenceStatusListener listener) {
+        listeners.add(listener);
     }
 
     /**
@@ -40,11 +76,14 @@ public class PresenceStore {
      * Returns the new connection count.
      */
     public int addConnection(Long userId) {
-        UserPresenceData data = store.compute(userId, (id, existing) -> {
+        AtomicReference<PresenceStatus> previous = new AtomicReference<>(PresenceStatus.OFFLINE);
+
+        UserPresenceData data = mutate(userId, (id, existing) -> {
             Instant now = Instant.now(clock);
             if (existing == null) {
                 return new UserPresenceData(PresenceStatus.ONLINE, now, null, 1);
             }
+            previous.set(existing.getStatus());
             existing.incrementConnections();
             existing.setLastSeenAt(now);
             // If was OFFLINE, switch to ONLINE
@@ -53,6 +92,8 @@ public class PresenceStore {
             }
             return existing;
         });
+        dirty.add(userId);
+        notifyTransition(userId, previous.get(), data.getStatus());
         int count = data.getConnectionCount();
         return count;
     }
@@ -64,12 +105,13 @@ public class PresenceStore {
     public boolean removeConnection(Long userId) {
         AtomicInteger remaining = new AtomicInteger(0);
 
-        store.computeIfPresent(userId, (id, data) -> {
+        mutateIfPresent(userId, (id, data) -> {
             data.decrementConnections();
             remaining.set(data.getConnectionCount());
             data.setLastSeenAt(Instant.now(clock));
             return data;
         });
+        dirty.add(userId);
 
         int count = remaining.get();
         return count <= 0;
@@ -84,8 +126,13 @@ public class PresenceStore {
     }
 
     public void setUserStatus(Long userId, PresenceStatus status) {
-        store.compute(userId, (id, data) -> {
+        AtomicReference<PresenceStatus> previous = new AtomicReference<>(PresenceStatus.OFFLINE);
+
+        UserPresenceData updated = mutate(userId, (id, data) -> {
             Instant now = Instant.now(clock);
+            if (data != null) {
+                previous.set(data.getStatus());
+            }
             boolean hasSession = (data != null && data.getActiveSessionId() != null);
 
             // If reconnecting (ONLINE) but has session, stay BUSY
@@ -105,23 +152,35 @@ public class PresenceStore {
             data.setLastSeenAt(now);
             return data;
         });
+
+        dirty.add(userId);
+        notifyTransition(userId, previous.get(), updated.getStatus());
     }
 
     public void setUserSession(Long userId, Long sessionId) {
-        store.compute(userId, (id, data) -> {
+        AtomicReference<PresenceStatus> previous = new AtomicReference<>();
+
+        UserPresenceData updated = mutate(userId, (id, data) -> {
             if (data == null) {
+                previous.set(PresenceStatus.OFFLINE);
                 return new UserPresenceData(PresenceStatus.BUSY, Instant.now(clock), sessionId, 0);
             }
+            previous.set(data.getStatus());
             data.setActiveSessionId(sessionId);
             return data;
         });
+
+        dirty.add(userId);
+        notifyTransition(userId, previous.get(), updated.getStatus());
     }
 
     public void updateLastSeen(Long userId) {
-        store.computeIfPresent(userId, (id, data) -> {
+        if (mutateIfPresent(userId, (id, data) -> {
             data.setLastSeenAt(Instant.now(clock));
             return data;
-        });
+        }) != null) {
+            dirty.add(userId);
+        }
     }
 
     public PresenceStatus getStatus(Long userId) {
@@ -135,28 +194,204 @@ public class PresenceStore {
     }
 
     public void removeUser(Long userId) {
-        store.remove(userId);
+        AtomicReference<UserPresenceData> removedRef = new AtomicReference<>();
+        store.computeIfPresent(userId, (id, data) -> {
+            count(Tally.of(data), null);
+            removedRef.set(data);
+            return null;
+        });
+        UserPresenceData removed = removedRef.get();
+        if (removed != null) {
+            if (removed.getIdleKey() != null) {
+                idleIndex.remove(removed.getIdleKey());
+            }
+            dirty.add(userId);
+            notifyTransition(userId, removed.getStatus(), PresenceStatus.OFFLINE);
+        }
     }
 
     /**
-     * Check if a user is stale (no recent activity).
+     * Count all users currently online (not OFFLINE, with an open connection).
+     * Used for dashboard metrics.
      */
-    public boolean isStale(Long userId, Instant cutoff) {
-        UserPresenceData data = store.get(userId);
-        if (data == null)
-            return true;
-        Instant lastSeen = data.getLastSeenAt();
-        return lastSeen == null || lastSeen.isBefore(cutoff);
+    public long getOnlineUserCount() {
+        return onlineUsers.sum();
     }
 
     /**
-     * Count all users currently online (not OFFLINE).
-     * Used for dashboard metrics.
+     * Counter snapshot. Each value is read independently, so under
+     * concurrent changes they may be off by the in-flight updates.
      */
-    public long getOnlineUserCount() {
-        return store.values().stream()
-                .filter(d -> d.getStatus() != PresenceStatus.OFFLINE && d.getConnectionCount() > 0)
-                .count();
+    public PresenceStats getStats() {
+        Map<PresenceStatus, Long> byStatus = new EnumMap<>(PresenceStatus.class);
+        usersByStatus.forEach((status, counter) -> byStatus.put(status, counter.sum()));
+        return new PresenceStats(
+                onlineUsers.sum(),
+                connectedUsers.sum(),
+                openConnections.sum(),
+                store.size(),
+                byStatus);
+    }
+
+    // ==================== STALE SWEEP ====================
+
+    /**
+     * Mark OFFLINE every user with no open connection whose lastSeenAt is
+     * before the cutoff. Walks the idle index from the oldest entry and stops
+     * at the cutoff, so the cost is proportional to the users expired.
+     * 
+     * Listeners are notified; the users are NOT marked dirty - the caller
+     * persists the returned batch itself (and re-marks it on failure).
+     */
+    public List<PresenceSnapshot> expireIdleBefore(Instant cutoff) {
+        List<PresenceSnapshot> expired = new ArrayList<>();
+
+        for (IdleKey key : idleIndex.headSet(new IdleKey(cutoff, Long.MIN_VALUE))) {
+            AtomicReference<PresenceStatus> previous = new AtomicReference<>();
+
+            UserPresenceData data = mutateIfPresent(key.userId(), (id, current) -> {
+                // Only if still idle with the same lastSeenAt the key was filed under
+                if (key.equals(current.getIdleKey())) {
+                    previous.set(current.getStatus());
+                    current.setStatus(PresenceStatus.OFFLINE);
+                }
+                return current;
+            });
+
+            if (data == null) {
+                idleIndex.remove(key);
+                continue;
+            }
+            if (previous.get() != null) {
+                expired.add(new PresenceSnapshot(key.userId(), PresenceStatus.OFFLINE, key.lastSeenAt()));
+                notifyTransition(key.userId(), previous.get(), PresenceStatus.OFFLINE);
+            }
+        }
+        return expired;
+    }
+
+    public int getIdleCount() {
+        return idleIndex.size();
+    }
+
+    // ==================== WRITE-BEHIND ====================
+
+    /**
+     * Take the users changed since the last drain, with their current
+     * status and lastSeenAt. A user that has since been removed from the
+     * store is reported OFFLINE with a null lastSeenAt (keep the DB value).
+     */
+    public List<PresenceSnapshot> drainDirty() {
+        List<PresenceSnapshot> snapshots = new ArrayList<>();
+        for (Long userId : dirty) {
+            // Remove before reading: a change racing this drain re-marks the user
+            dirty.remove(userId);
+            // Read under the map's lock so status and lastSeenAt are consistent
+            AtomicReference<PresenceSnapshot> snapshot = new AtomicReference<>(
+                    new PresenceSnapshot(userId, PresenceStatus.OFFLINE, null));
+            store.computeIfPresent(userId, (id, data) -> {
+                snapshot.set(new PresenceSnapshot(id, data.getStatus(), data.getLastSeenAt()));
+                return data;
+            });
+            snapshots.add(snapshot.get());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Re-mark users whose flush failed so the next drain picks them up.
+     */
+    public void markDirty(Collection<Long> userIds) {
+        dirty.addAll(userIds);
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    // ==================== INTERNAL ====================
+
+    private UserPresenceData mutate(Long userId,
+            BiFunction<Long, UserPresenceData, UserPresenceData> change) {
+        return store.compute(userId, (id, data) -> apply(id, data, change));
+    }
+
+    private UserPresenceData mutateIfPresent(Long userId,
+            BiFunction<Long, UserPresenceData, UserPresenceData> change) {
+        return store.computeIfPresent(userId, (id, data) -> apply(id, data, change));
+    }
+
+    /**
+     * Run a change under the map's compute lock for the user, then bring the
+     * idle index and counters in step with the result. The "before" tally is
+     * taken first because changes mutate the entry in place.
+     */
+    private UserPresenceData apply(Long userId, UserPresenceData data,
+            BiFunction<Long, UserPresenceData, UserPresenceData> change) {
+        Tally before = Tally.of(data);
+        UserPresenceData result = reindex(userId, change.apply(userId, data));
+        count(before, Tally.of(result));
+        return result;
+    }
+
+    private void count(Tally before, Tally after) {
+        if (before != null) {
+            usersByStatus.get(before.status()).decrement();
+            openConnections.add(-before.connections());
+            if (before.connected()) {
+                connectedUsers.decrement();
+            }
+            if (before.online()) {
+                onlineUsers.decrement();
+            }
+        }
+        if (after != null) {
+            usersByStatus.get(after.status()).increment();
+            openConnections.add(after.connections());
+            if (after.connected()) {
+                connectedUsers.increment();
+            }
+            if (after.online()) {
+                onlineUsers.increment();
+            }
+        }
+    }
+
+    /**
+     * Keep the idle index in step with the entry. Runs inside the map's
+     * compute lock for the user.
+     */
+    private UserPresenceData reindex(Long userId, UserPresenceData data) {
+        if (data == null) {
+            return null;
+        }
+        boolean idle = data.getStatus() != PresenceStatus.OFFLINE && data.getConnectionCount() <= 0;
+        IdleKey wanted = idle
+                ? new IdleKey(data.getLastSeenAt() != null ? data.getLastSeenAt() : Instant.EPOCH, userId)
+                : null;
+        IdleKey current = data.getIdleKey();
+
+        if (current != null && !current.equals(wanted)) {
+            idleIndex.remove(current);
+        }
+        if (wanted != null && !wanted.equals(current)) {
+            idleIndex.add(wanted);
+        }
+        data.setIdleKey(wanted);
+        return data;
+    }
+
+    private void notifyTransition(Long userId, PresenceStatus previous, PresenceStatus current) {
+        if (previous == current) {
+            return;
+        }
+        for (PresenceStatusListener listener : listeners) {
+            try {
+                listener.onStatusChange(userId, previous, current);
+            } catch (Exception e) {
+                log.error("Presence listener failed for user {}: {}", userId, e.getMessage());
+            }
+        }
     }
 
     // Internal Data Class
@@ -165,6 +400,7 @@ public class PresenceStore {
         private Instant lastSeenAt;
         private Long activeSessionId;
         private int connectionCount;
+        private IdleKey idleKey;
 
         public UserPresenceData(PresenceStatus status, Instant lastSeenAt, Long activeSessionId,
                 int connectionCount) {
@@ -206,10 +442,36 @@ public class PresenceStore {
             this.connectionCount++;
         }
 
+        public IdleKey getIdleKey() {
+            return idleKey;
+        }
+
+        public void setIdleKey(IdleKey idleKey) {
+            this.idleKey = idleKey;
+        }
+
         public void decrementConnections() {
             if (this.connectionCount > 0) {
                 this.connectionCount--;
             }
         }
     }
+
+    private record IdleKey(Instant lastSeenAt, Long userId) {
+    }
+
+    private record Tally(PresenceStatus status, int connections) {
+
+        static Tally of(UserPresenceData data) {
+            return data != null ? new Tally(data.getStatus(), data.getConnectionCount()) : null;
+        }
+
+        boolean connected() {
+            return connections > 0;
+        }
+
+        boolean online() {
+            return connected() && status != PresenceStatus.OFFLINE;
+        }
+    }
 }
@@ -0,0 +1,182 @@
+package com.Project.Continuum.store;
+
+import com.Project.Continuum.enums.PresenceStatus;
+import com.Project.Continuum.enums.SkillType;
+import com.Project.Continuum.repository.UserSkillRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-Memory Skill Reciprocity Index for matching.
+ * 
+ * Maintains (skillId, SkillType) -> online user IDs so that finding a partner
+ * becomes a set intersection instead of per-candidate queries.
+ * 
+ * - Skill ownership is loaded once at startup and kept in sync by
+ * UserSkillService (add / update / delete); changes are applied after the
+ * surrounding transaction commits, so a rollback never reaches the index
+ * - Online membership follows PresenceStore status transitions. Every
+ * change for a user runs under that user's skillsByUser compute lock and
+ * re-reads the live status, so transitions delivered out of order still
+ * leave the index matching PresenceStore
+ * 
+ * The index is a pre-filter: MatchingService still loads the final candidate
+ * rows from the DB, so a briefly stale entry never produces a wrong match.
+ */
+@Component
+public class SkillMatchIndex implements PresenceStatusListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SkillMatchIndex.class);
+
+    private final UserSkillRepository userSkillRepository;
+    private final PresenceStore presenceStore;
+
+    // userId -> all skill keys owned by the user (online or not)
+    private final Map<Long, Set<SkillKey>> skillsByUser = new ConcurrentHashMap<>();
+
+    // skill key -> users currently online who own it
+    private final Map<SkillKey, Set<Long>> onlineUsersBySkill = new ConcurrentHashMap<>();
+
+    public SkillMatchIndex(UserSkillRepository userSkillRepository, PresenceStore presenceStore) {
+        this.userSkillRepository = userSkillRepository;
+        this.presenceStore = presenceStore;
+        presenceStore.addStatusListener(this);
+    }
+
+    @PostConstruct
+    public void load() {
+        List<Object[]> rows = userSkillRepository.findAllSkillKeys();
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            Long skillId = (Long) row[1];
+            SkillType skillType = (SkillType) row[2];
+            skillsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet())
+                    .add(new SkillKey(skillId, skillType));
+        }
+        log.info("Skill match index loaded: {} user skills for {} users", rows.size(), skillsByUser.size());
+    }
+
+    // ==================== SKILL OWNERSHIP ====================
+
+    public void addSkill(Long userId, Long skillId, SkillType skillType) {
+        SkillKey key = new SkillKey(skillId, skillType);
+        afterCommit(() -> skillsByUser.compute(userId, (id, keys) -> {
+            Set<SkillKey> owned = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            owned.add(key);
+            syncOnline(id, owned);
+            return owned;
+        }));
+    }
+
+    public void removeSkill(Long userId, Long skillId, SkillType skillType) {
+        SkillKey key = new SkillKey(skillId, skillType);
+        afterCommit(() -> skillsByUser.computeIfPresent(userId, (id, keys) -> {
+            keys.remove(key);
+            removeOnline(key, id);
+            return keys;
+        }));
+    }
+
+    public void removeUser(Long userId) {
+        afterCommit(() -> skillsByUser.computeIfPresent(userId, (id, keys) -> {
+            keys.forEach(key -> removeOnline(key, id));
+            return null;
+        }));
+    }
+
+    // ==================== PRESENCE ====================
+
+    /**
+     * previous / current are only a hint: the live status is re-read under the
+     * user's lock, so the last delivered transition always wins with the
+     * latest state.
+     */
+    @Override
+    public void onStatusChange(Long userId, PresenceStatus previous, PresenceStatus current) {
+        skillsByUser.computeIfPresent(userId, (id, keys) -> {
+            syncOnline(id, keys);
+            return keys;
+        });
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Online users owning the given skill with the given type.
+     */
+    public Set<Long> getOnlineUsers(Long skillId, SkillType skillType) {
+        Set<Long> users = onlineUsersBySkill.get(new SkillKey(skillId, skillType));
+        return users != null ? Collections.unmodifiableSet(users) : Set.of();
+    }
+
+    /**
+     * Online users who TEACH {@code learnSkillId} and, when reciprocity is
+     * required, also LEARN {@code teachSkillId}.
+     */
+    public Set<Long> findReciprocalPartners(Long teachSkillId, Long learnSkillId, boolean requireReciprocity) {
+        Set<Long> teachers = getOnlineUsers(learnSkillId, SkillType.TEACH);
+        if (!requireReciprocity) {
+            return new HashSet<>(teachers);
+        }
+
+        Set<Long> learners = getOnlineUsers(teachSkillId, SkillType.LEARN);
+
+        // Iterate the smaller side
+        Set<Long> smaller = teachers.size() <= learners.size() ? teachers : learners;
+        Set<Long> larger = smaller == teachers ? learners : teachers;
+
+        Set<Long> result = new HashSet<>();
+        for (Long userId : smaller) {
+            if (larger.contains(userId)) {
+                result.add(userId);
+            }
+        }
+        return result;
+    }
+
+    // Runs under the user's skillsByUser compute lock
+    private void syncOnline(Long userId, Set<SkillKey> keys) {
+        if (presenceStore.getStatus(userId) == PresenceStatus.OFFLINE) {
+            keys.forEach(key -> removeOnline(key, userId));
+        } else {
+            keys.forEach(key -> onlineUsersBySkill
+                    .computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet())
+                    .add(userId));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+
+        action.run();
+    }
+
+    private void removeOnline(SkillKey key, Long userId) {
+        onlineUsersBySkill.computeIfPresent(key, (k, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private record SkillKey(Long skillId, SkillType skillType) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.Project.Continuum.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory unread-notification counters per user.
+ *
+ * Seeded lazily from the database on first read and then kept current by
+ * NotificationService deltas. Entries are re-seeded after the TTL so any
+ * drift (e.g. a concurrent write racing the seed query) is bounded.
+ * Deltas for users that are not cached are ignored - the next read seeds
+ * from the database anyway.
+ */
+@Component
+public class UnreadCountStore {
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final Duration ttl;
+
+    public UnreadCountStore(Clock clock,
+            @Value("${notifications.unread-cache.ttl:10m}") Duration ttl) {
+        this.clock = clock;
+        this.ttl = ttl;
+    }
+
+    public long get(Long userId, LongSupplier loader) {
+        Instant now = Instant.now(clock);
+        Counter counter = counters.get(userId);
+        if (counter != null && !counter.isExpired(now, ttl)) {
+            return counter.value.get();
+        }
+
+        Counter seeded = new Counter(loader.getAsLong(), now);
+        counters.put(userId, seeded);
+        return seeded.value.get();
+    }
+
+    public void adjust(Long userId, long delta) {
+        Counter counter = counters.get(userId);
+        if (counter != null) {
+            counter.value.updateAndGet(v -> Math.max(0, v + delta));
+        }
+    }
+
+    public void reset(Long userId) {
+        counters.put(userId, new Counter(0, Instant.now(clock)));
+    }
+
+    public void invalidate(Long userId) {
+        counters.remove(userId);
+    }
+
+    @Scheduled(fixedDelay = 300000)
+    public void evictExpired() {
+        Instant now = Instant.now(clock);
+        counters.values().removeIf(counter -> counter.isExpired(now, ttl));
+    }
+
+    private static final class Counter {
+        private final AtomicLong value;
+        private final Instant seededAt;
+
+        private Counter(long value, Instant seededAt) {
+            this.value = new AtomicLong(value);
+            this.seededAt = seededAt;
+        }
+
+        private boolean isExpired(Instant now, Duration ttl) {
+            return seededAt.plus(ttl).isBefore(now);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- Migration: Dead-letter table for undeliverable web pushes
+-- Date: 2026-10-17
+-- Description: Pushes that exhaust retries, are rejected permanently, or are
+-- throttled beyond the allowed Retry-After are recorded here. Only delivery
+-- metadata is kept: the endpoint origin, the push topic and a SHA-256 / size
+-- of the payload - never the payload itself or the full endpoint URL.
+
+CREATE TABLE IF NOT EXISTS push_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    subscription_id BIGINT,
+    endpoint_origin VARCHAR(255) NOT NULL,
+    topic VARCHAR(32),
+    status_code INTEGER,
+    reason VARCHAR(500),
+    attempts INTEGER NOT NULL,
+    payload_sha256 VARCHAR(64),
+    payload_size INTEGER,
+    failed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_push_dead_letter_failed
+ON push_dead_letters (failed_at);
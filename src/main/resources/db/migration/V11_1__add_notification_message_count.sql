@@ -0,0 +1,7 @@
+-- Migration: Message count column for coalesced chat notifications
+-- Date: 2026-10-17
+-- Description: Merged chat notifications ("N new messages from X") keep N
+-- in a column so each merge increments it with one atomic UPDATE. NULL is
+-- read as 1, so existing rows need no backfill.
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS message_count INTEGER;
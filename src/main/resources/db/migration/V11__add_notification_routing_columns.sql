@@ -0,0 +1,43 @@
+-- Migration: Promote notification routing fields out of the JSON payload
+-- Date: 2026-10-17
+-- Description: sender_id (counterpart user), call_id and session_id become
+-- typed, indexed columns so read-marking no longer scans payload with LIKE.
+
+-- 1. Add columns
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS sender_id BIGINT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS call_id BIGINT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS session_id BIGINT;
+
+-- 2. Backfill the counterpart user: first id field that is not the recipient
+UPDATE notifications n
+SET sender_id = c.counterpart_id
+FROM (
+    SELECT id, (
+        SELECT v.candidate
+        FROM (VALUES
+            (1, CAST(substring(payload from '"senderId":\s*(\d+)') AS BIGINT)),
+            (2, CAST(substring(payload from '"callerId":\s*(\d+)') AS BIGINT)),
+            (3, CAST(substring(payload from '"receiverId":\s*(\d+)') AS BIGINT)),
+            (4, CAST(substring(payload from '"requesterId":\s*(\d+)') AS BIGINT)),
+            (5, CAST(substring(payload from '"friendId":\s*(\d+)') AS BIGINT))
+        ) AS v(priority, candidate)
+        WHERE v.candidate IS NOT NULL AND v.candidate <> notifications.user_id
+        ORDER BY v.priority
+        LIMIT 1
+    ) AS counterpart_id
+    FROM notifications
+    WHERE payload IS NOT NULL AND sender_id IS NULL
+) c
+WHERE n.id = c.id AND c.counterpart_id IS NOT NULL;
+
+UPDATE notifications
+SET call_id = CAST(substring(payload from '"callId":\s*(\d+)') AS BIGINT)
+WHERE call_id IS NULL AND payload LIKE '%"callId"%';
+
+UPDATE notifications
+SET session_id = CAST(substring(payload from '"sessionId":\s*(\d+)') AS BIGINT)
+WHERE session_id IS NULL AND payload LIKE '%"sessionId"%';
+
+-- 3. Unread-by-sender lookups (chat read-marking)
+CREATE INDEX IF NOT EXISTS idx_notification_user_sender_read
+ON notifications (user_id, sender_id, is_read);
@@ -0,0 +1,7 @@
+-- Migration: Index for the notification retention job
+-- Date: 2026-10-17
+-- Description: Lets the job find old read notifications oldest-first
+-- without scanning the whole table.
+
+CREATE INDEX IF NOT EXISTS idx_notification_read_created
+ON notifications (is_read, created_at);
@@ -0,0 +1,14 @@
+-- Migration: Indexes for call session lifecycle queries
+-- Date: 2026-10-17
+-- Description: Status/time index for the startup cleanup and other
+-- status-range scans, plus per-participant status indexes for the
+-- active-call checks on caller and receiver.
+
+CREATE INDEX IF NOT EXISTS idx_call_status_initiated
+ON call_sessions (status, initiated_at);
+
+CREATE INDEX IF NOT EXISTS idx_call_caller_status
+ON call_sessions (caller_id, status);
+
+CREATE INDEX IF NOT EXISTS idx_call_receiver_status
+ON call_sessions (receiver_id, status);
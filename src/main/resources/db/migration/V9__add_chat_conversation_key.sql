@@ -0,0 +1,25 @@
+-- Migration: Add normalized conversation key to chat_messages
+-- Date: 2026-10-17
+-- Description: Replaces OR-over-(sender, recipient) lookups with a single
+-- indexed key "min(userId):max(userId)" shared by both directions.
+
+-- 1. Add column
+ALTER TABLE chat_messages
+ADD COLUMN IF NOT EXISTS conversation_key VARCHAR(41);
+
+-- 2. Backfill existing rows
+UPDATE chat_messages
+SET conversation_key = LEAST(sender_id, recipient_id) || ':' || GREATEST(sender_id, recipient_id)
+WHERE conversation_key IS NULL;
+
+ALTER TABLE chat_messages
+ALTER COLUMN conversation_key SET NOT NULL;
+
+-- 3. History / clear-chat: range scan by conversation in (sent_at, id) order
+CREATE INDEX IF NOT EXISTS idx_chat_conversation_sent
+ON chat_messages (conversation_key, sent_at, id);
+
+-- 4. Pending deliveries: only undelivered rows are indexed
+CREATE INDEX IF NOT EXISTS idx_chat_recipient_undelivered
+ON chat_messages (recipient_id)
+WHERE delivered_at IS NULL;